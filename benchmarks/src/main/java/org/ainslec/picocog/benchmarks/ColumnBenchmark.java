@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ainslec.picocog.PicoWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Column rows ({@link PicoWriter#writeln(String...)}), aligned and flushed when the next ordinary line is written.
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnBenchmark {
+   @Param({ "1000", "10000", "100000", "1000000" })
+   public int rows;
+
+   @Param({ "10", "1000" })
+   public int rowsPerTable;
+
+   @Benchmark
+   public PicoWriter columnRows() {
+      PicoWriter w = new PicoWriter();
+      for (int i = 0; i < rows; i++) {
+         w.writeln("private", "int", "field" + i, "= " + i + ";");
+         if (i % rowsPerTable == rowsPerTable - 1) {
+            w.writeln("");
+         }
+      }
+      w.writeln("");
+      return w;
+   }
+}
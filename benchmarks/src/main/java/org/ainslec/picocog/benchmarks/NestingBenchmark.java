@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ainslec.picocog.PicoWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deferred writers: deep chains of {@link PicoWriter#createDeferredWriter()}, and attaching pre-built writers
+ * with {@link PicoWriter#writeln(PicoWriter)}.
+ * <p>
+ * Rendering is iterative, so the time and memory taken to render a chain should both grow linearly with its
+ * depth. Compare the scores of {@link #renderDeepChain()} for each size, along with gc.alloc.rate.norm
+ * (bytes allocated per render) when run with {@code -prof gc}.
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NestingBenchmark {
+   @Param({ "1000", "10000", "100000" })
+   public int size;
+
+   private PicoWriter _prebuilt;
+   private PicoWriter _chain;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      _prebuilt = Trees.createTree(size);
+      _chain    = createChain(size);
+   }
+
+   private static PicoWriter createChain(int depth) {
+      // Lines are not indented, so that the output grows linearly with the depth
+      PicoWriter top = new PicoWriter();
+      PicoWriter w = top;
+      for (int i = 0; i < depth; i++) {
+         w.writeln("{");
+         PicoWriter inner = w.createDeferredWriter();
+         w.writeln("}");
+         w = inner;
+      }
+      return top;
+   }
+
+   @Benchmark
+   public String deepDeferredNesting() {
+      return createChain(size).toString();
+   }
+
+   @Benchmark
+   public String renderDeepChain() {
+      return _chain.toString();
+   }
+
+   @Benchmark
+   public PicoWriter attachWriter() {
+      PicoWriter top = new PicoWriter();
+      top.writeln_r("{");
+      for (int i = 0; i < 100; i++) {
+         top.writeln(_prebuilt);
+      }
+      top.writeln_l("}");
+      return top;
+   }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ainslec.picocog.PicoWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering pre-built trees with {@link PicoWriter#toString()}. The largest size needs a heap of a few gigabytes.
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class RenderBenchmark {
+   @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+   public int lines;
+
+   private PicoWriter _tree;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      _tree = Trees.createTree(lines);
+      _tree.toString(); // Flushes every writer, so only rendering is measured
+   }
+
+   @Benchmark
+   public String render() {
+      return _tree.toString();
+   }
+
+   @Benchmark
+   public long measure() {
+      return _tree.measure();
+   }
+}
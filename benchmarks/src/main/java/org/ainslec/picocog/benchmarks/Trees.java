@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog.benchmarks;
+
+import org.ainslec.picocog.PicoWriter;
+
+/**
+ * Builds the synthetic trees used by the benchmarks: classes of methods, each with a few lines of body text.
+ * @author agent
+ */
+final class Trees {
+   static final int LINES_PER_METHOD = 5;
+
+   private Trees() {
+   }
+
+   /**
+    * @param lines The approximate number of lines the tree renders to
+    * @return A tree of one class per thousand lines, with a deferred writer per class for its fields
+    */
+   static PicoWriter createTree(int lines) {
+      PicoWriter top = new PicoWriter();
+      int written = 0;
+      for (int c = 0; written < lines; c++) {
+         top.writeln_r("public class Generated" + c + " {");
+         PicoWriter fields = top.createDeferredWriter();
+         for (int m = 0; m < 1000 / LINES_PER_METHOD && written < lines; m++) {
+            fields.writeln("private int field" + m + ";");
+            writeMethod(top, m);
+            written += LINES_PER_METHOD + 1;
+         }
+         top.writeln_l("}");
+      }
+      return top;
+   }
+
+   static void writeMethod(PicoWriter w, int m) {
+      w.writeln_r("public int method" + m + "(int a) {");
+      w.writeln("int b = a * " + m + ";");
+      w.writeln("b += field" + m + ";");
+      w.writeln_l("return b;");
+      w.writeln("}");
+   }
+}
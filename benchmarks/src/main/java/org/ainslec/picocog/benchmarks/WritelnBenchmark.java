@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.ainslec.picocog.PicoWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building trees line by line, with {@link PicoWriter#writeln(String)}, {@link PicoWriter#writeln_r(String)}
+ * and {@link PicoWriter#writeln_l(String)}.
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WritelnBenchmark {
+   @Param({ "1000", "10000", "100000", "1000000" })
+   public int lines;
+
+   @Benchmark
+   public PicoWriter writeln() {
+      PicoWriter w = new PicoWriter();
+      for (int i = 0; i < lines; i++) {
+         w.writeln("int field = 0;");
+      }
+      return w;
+   }
+
+   @Benchmark
+   public PicoWriter writelnConcatenated() {
+      PicoWriter w = new PicoWriter();
+      for (int i = 0; i < lines; i++) {
+         w.writeln("private int field" + i + " = " + i + ";");
+      }
+      return w;
+   }
+
+   @Benchmark
+   public PicoWriter appendCompact() {
+      PicoWriter w = new PicoWriter();
+      w.setCompactStorage(true);
+      for (int i = 0; i < lines; i++) {
+         w.append("private int field").append(i).append(" = ").append(i).append(';').endln();
+      }
+      return w;
+   }
+
+   @Benchmark
+   public PicoWriter writelnRightLeft() {
+      PicoWriter w = new PicoWriter();
+      for (int i = 0; i < lines; i += 2) {
+         w.writeln_r("{");
+         w.writeln_l("}");
+      }
+      return w;
+   }
+
+   @Benchmark
+   public PicoWriter buildTree() {
+      return Trees.createTree(lines);
+   }
+}
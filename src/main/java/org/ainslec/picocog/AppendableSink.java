@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+
+/**
+ * A {@link LineSink} that renders to any {@link Appendable}.
+ * @author agent
+ */
+class AppendableSink implements LineSink {
+   private final Appendable _out;
+   private final String     _lineSeparator;
+   private IndentPrefixes   _prefixes = new IndentPrefixes();
+   
+   AppendableSink(Appendable out, String lineSeparator) {
+      _out           = out;
+      _lineSeparator = lineSeparator;
+   }
+   
+   @Override
+   public void writeLine(String indentText, int indentLevel, CharSequence line) throws IOException {
+      if (indentLevel > 0) {
+         _out.append(_prefixes.get(indentText, indentLevel));
+      }
+      _out.append(line);
+      _out.append(_lineSeparator);
+   }
+   
+   @Override
+   public void writeText(CharSequence text) throws IOException {
+      _out.append(text);
+   }
+}
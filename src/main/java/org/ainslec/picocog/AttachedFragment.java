@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * A shared fragment that has been inserted into a writer with {@link PicoWriter#writeln(PicoFragment)}, along
+ * with the indentation level it was inserted at.
+ * @author agent
+ */
+class AttachedFragment implements PicoWriterItem {
+   final PicoFragment _fragment;
+   final int          _indentOffset;
+   
+   AttachedFragment(PicoFragment fragment, int indentOffset) {
+      _fragment     = fragment;
+      _indentOffset = indentOffset;
+   }
+   
+   @Override public String toString() { return _indentOffset + ":" + _fragment; }
+}
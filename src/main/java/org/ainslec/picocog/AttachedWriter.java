@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * A pre-built writer that has been attached to another writer with {@link PicoWriter#writeln(PicoWriter)}.
+ * The attached writer is never modified, its lines are shifted by the indent offset (and take on the indent
+ * text of the writer it is attached to) when rendered.
+ * @author agent
+ */
+class AttachedWriter implements PicoWriterItem {
+   final PicoWriter _writer;
+   final int        _indentOffset;
+   
+   AttachedWriter(PicoWriter writer, int indentOffset) {
+      _writer       = writer;
+      _indentOffset = indentOffset;
+   }
+   
+   @Override public String toString() { return _indentOffset + ":" + _writer; }
+}
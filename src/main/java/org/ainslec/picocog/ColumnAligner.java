@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * Collects rows of columns written with {@link PicoWriter#writeln(String...)}, and pads them so that each column
+ * lines up. Column widths are tracked in a primitive array as rows arrive, and the cells of every row are kept
+ * in a single flat array, so writing the rows out is a single pass.
+ * @author agent
+ */
+class ColumnAligner {
+   private static final String SPACES = "                                                                "; // 64 spaces
+   
+   private String[]      _cells      = new String[64];
+   private int           _cellCount  = 0;
+   private int[]         _rowEnds    = new int[16];  // The index in _cells just past the last cell of each row
+   private int[]         _rowIndents = new int[16];
+   private int           _rowCount   = 0;
+   private int[]         _widths     = new int[8];
+   private int           _columns    = 0;
+   private StringBuilder _rowSB      = new StringBuilder();
+   
+   boolean isEmpty() {
+      return _rowCount == 0;
+   }
+   
+   int getRowCount() {
+      return _rowCount;
+   }
+   
+   /**
+    * @return The index (as used by {@link #getCell(int)}) just past the last cell of a row
+    */
+   int getRowEnd(int row) {
+      return _rowEnds[row];
+   }
+   
+   int getRowIndent(int row) {
+      return _rowIndents[row];
+   }
+   
+   String getCell(int cell) {
+      return _cells[cell];
+   }
+   
+   void addRow(String[] columns, int indent) {
+      final int numColumns = columns.length;
+      if (_cellCount + numColumns > _cells.length) {
+         String[] cells = new String[Math.max(_cellCount + numColumns, _cells.length * 2)];
+         System.arraycopy(_cells, 0, cells, 0, _cellCount);
+         _cells = cells;
+      }
+      if (numColumns > _widths.length) {
+         int[] widths = new int[Math.max(numColumns, _widths.length * 2)];
+         System.arraycopy(_widths, 0, widths, 0, _columns);
+         _widths = widths;
+      }
+      if (_rowCount == _rowEnds.length) {
+         _rowEnds    = grow(_rowEnds);
+         _rowIndents = grow(_rowIndents);
+      }
+      for (int i = 0; i < numColumns; i++) {
+         String cell = columns[i];
+         int width = cell == null ? 0 : cell.length();
+         if (width > _widths[i]) {
+            _widths[i] = width;
+         }
+         _cells[_cellCount++] = cell;
+      }
+      if (numColumns > _columns) {
+         _columns = numColumns;
+      }
+      _rowEnds[_rowCount]    = _cellCount;
+      _rowIndents[_rowCount] = indent;
+      _rowCount++;
+   }
+   
+   /**
+    * Writes every row to the writer, then forgets them.
+    * @param alignments The alignment of each column, or null to align every column left
+    */
+   void flush(PicoWriter writer, ColumnAlignment[] alignments) {
+      final StringBuilder rowSB = _rowSB;
+      int cell = 0;
+      for (int row = 0; row < _rowCount; row++) {
+         final int rowEnd = _rowEnds[row];
+         for (int column = 0; cell < rowEnd; cell++, column++) {
+            String value   = _cells[cell];
+            int    padding = _widths[column] - (value == null ? 0 : value.length());
+            if (alignments != null && column < alignments.length && alignments[column] == ColumnAlignment.RIGHT) {
+               appendSpaces(rowSB, padding);
+               if (value != null) {
+                  rowSB.append(value);
+               }
+            } else {
+               if (value != null) {
+                  rowSB.append(value);
+               }
+               appendSpaces(rowSB, padding); // right pad
+            }
+         }
+         writer.addLine(rowSB, _rowIndents[row]);
+         rowSB.setLength(0);
+      }
+      clear();
+   }
+   
+   /**
+    * Forgets the rows after the first few.
+    * @param rowCount The number of rows to keep
+    */
+   void truncate(int rowCount) {
+      if (rowCount >= _rowCount) {
+         return;
+      }
+      if (rowCount == 0) {
+         clear();
+         return;
+      }
+      int cellCount = _rowEnds[rowCount - 1];
+      for (int i = cellCount; i < _cellCount; i++) {
+         _cells[i] = null;
+      }
+      _cellCount = cellCount;
+      _rowCount  = rowCount;
+      // Work the column widths out again from the rows that are left
+      for (int i = 0; i < _columns; i++) {
+         _widths[i] = 0;
+      }
+      _columns = 0;
+      int cell = 0;
+      for (int row = 0; row < _rowCount; row++) {
+         int column = 0;
+         for (; cell < _rowEnds[row]; cell++, column++) {
+            String value = _cells[cell];
+            int    width = value == null ? 0 : value.length();
+            if (width > _widths[column]) {
+               _widths[column] = width;
+            }
+         }
+         if (column > _columns) {
+            _columns = column;
+         }
+      }
+   }
+   
+   /**
+    * Forgets every row, keeping the arrays for reuse.
+    */
+   void clear() {
+      for (int i = 0; i < _cellCount; i++) {
+         _cells[i] = null;
+      }
+      for (int i = 0; i < _columns; i++) {
+         _widths[i] = 0;
+      }
+      _columns   = 0;
+      _cellCount = 0;
+      _rowCount  = 0;
+   }
+   
+   private static void appendSpaces(StringBuilder sb, int count) {
+      while (count > 0) {
+         int n = Math.min(count, SPACES.length());
+         sb.append(SPACES, 0, n);
+         count -= n;
+      }
+   }
+   
+   private static int[] grow(int[] array) {
+      int[] grown = new int[array.length * 2];
+      System.arraycopy(array, 0, grown, 0, array.length);
+      return grown;
+   }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * How the text of a column is aligned, when writing columns with {@link PicoWriter#writeln(String...)}.
+ * @author agent
+ */
+public enum ColumnAlignment {
+   /** Text is padded on the right (the default) */
+   LEFT,
+   /** Text is padded on the left */
+   RIGHT
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+
+/**
+ * A run of consecutive lines, stored in columns rather than as one {@link IndentedLine} per line. Used by writers
+ * in compact storage mode (see {@link PicoWriter#setCompactStorage(boolean)}).
+ * <p>
+ * The text of every line is packed into a single arena, one byte per character for as long as all of the text
+ * is ISO-8859-1, widening to one char per character after that. Line boundaries and indents are kept in
+ * primitive arrays.
+ * @author agent
+ */
+class CompactLines implements PicoWriterItem {
+   private static final byte[] NO_TEXT = new byte[0];
+   
+   // Sized from the first line, and grown as needed, as many runs only hold a few short lines
+   private int[]  _indents = new int[2];
+   private int[]  _ends    = new int[2];    // The arena offset just past the end of each line
+   private byte[] _latin1  = NO_TEXT;
+   private char[] _chars   = null;          // Replaces _latin1 once a line holds a character above 0xFF
+   private int    _count   = 0;
+   private int    _length  = 0;
+
+   void add(CharSequence text, int indent) {
+      final int length = text.length();
+      if (_count == _ends.length) {
+         _indents = copyOf(_indents, Math.max(2, _count * 2));
+         _ends    = copyOf(_ends, Math.max(2, _count * 2));
+      }
+      ensureCapacity(_length + length);
+
+      int i = 0;
+      if (_chars == null) {
+         for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c > 0xFF) {
+               inflate();
+               break;
+            }
+            _latin1[_length + i] = (byte) c;
+         }
+      }
+      for (; i < length; i++) {
+         _chars[_length + i] = text.charAt(i);
+      }
+
+      _length += length;
+      _indents[_count] = indent;
+      _ends[_count]    = _length;
+      _count++;
+   }
+
+   /**
+    * Forgets every line, keeping the arrays for reuse.
+    */
+   void clear() {
+      _count  = 0;
+      _length = 0;
+   }
+   
+   int getLineCount() {
+      return _count;
+   }
+
+   /**
+    * Forgets every line after the first lineCount lines, keeping the arrays.
+    */
+   void truncate(int lineCount) {
+      _count  = lineCount;
+      _length = lineCount == 0 ? 0 : _ends[lineCount - 1];
+   }
+
+   /**
+    * Releases any spare capacity, once no more lines will be added.
+    */
+   void trim() {
+      _indents = copyOf(_indents, _count);
+      _ends    = copyOf(_ends, _count);
+      if (_chars == null) {
+         if (_latin1.length != _length) {
+            byte[] trimmed = new byte[_length];
+            System.arraycopy(_latin1, 0, trimmed, 0, _length);
+            _latin1 = trimmed;
+         }
+      } else if (_chars.length != _length) {
+         char[] trimmed = new char[_length];
+         System.arraycopy(_chars, 0, trimmed, 0, _length);
+         _chars = trimmed;
+      }
+   }
+
+   /**
+    * Renders every line, following the same blank row rules as {@link PicoWriter}.
+    * @return true if the last row written (or suppressed) was blank
+    */
+   boolean render(RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) throws IOException {
+      LineView view = new LineView();
+      int start = 0;
+      for (int i = 0; i < _count; i++) {
+         final int end          = _ends[i];
+         boolean thisRowIsBlank = end == start;
+
+         if (ctx._normalizeAdjacentBlankRows && lastRowWasBlank && thisRowIsBlank) {
+            // Don't write the line if we already had a blank line
+         } else {
+            view._start = start;
+            view._end   = end;
+            ctx._sink.writeLine(indentText, indentBase + _indents[i], view);
+         }
+
+         lastRowWasBlank = thisRowIsBlank;
+         start = end;
+      }
+      return lastRowWasBlank;
+   }
+
+   private void ensureCapacity(int capacity) {
+      int current = _chars == null ? _latin1.length : _chars.length;
+      if (capacity > current) {
+         int grown = Math.max(capacity, current * 2);
+         if (_chars == null) {
+            byte[] latin1 = new byte[grown];
+            System.arraycopy(_latin1, 0, latin1, 0, _length);
+            _latin1 = latin1;
+         } else {
+            char[] chars = new char[grown];
+            System.arraycopy(_chars, 0, chars, 0, _length);
+            _chars = chars;
+         }
+      }
+   }
+
+   private void inflate() {
+      char[] chars = new char[_latin1.length];
+      for (int i = 0; i < chars.length; i++) {
+         chars[i] = (char) (_latin1[i] & 0xFF);
+      }
+      _chars  = chars;
+      _latin1 = null;
+   }
+
+   private static int[] copyOf(int[] array, int length) {
+      if (array.length == length) {
+         return array;
+      }
+      int[] copy = new int[length];
+      System.arraycopy(array, 0, copy, 0, Math.min(length, array.length));
+      return copy;
+   }
+
+   /**
+    * A view onto one line of the arena, reused for every line that is rendered, so only valid for the duration of
+    * a call to the sink.
+    */
+   private class LineView implements CharSequence {
+      int _start;
+      int _end;
+
+      @Override
+      public int length() {
+         return _end - _start;
+      }
+
+      @Override
+      public char charAt(int index) {
+         return _chars == null ? (char) (_latin1[_start + index] & 0xFF) : _chars[_start + index];
+      }
+
+      @Override
+      public CharSequence subSequence(int start, int end) {
+         return toString().substring(start, end);
+      }
+
+      @Override
+      public String toString() {
+         if (_chars == null) {
+            char[] chars = new char[_end - _start];
+            for (int i = 0; i < chars.length; i++) {
+               chars[i] = (char) (_latin1[_start + i] & 0xFF);
+            }
+            return new String(chars);
+         }
+         return new String(_chars, _start, _end - _start);
+      }
+   }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+
+/**
+ * A {@link LineSink} that passes each line through a list of {@link PicoLineFilter}s before writing it to another sink.
+ * @author agent
+ */
+class FilterSink implements LineSink {
+   private final LineSink         _out;
+   private final PicoLineFilter[] _filters;
+   private final PicoLine         _line = new PicoLine();
+   
+   FilterSink(LineSink out, PicoLineFilter[] filters) {
+      _out     = out;
+      _filters = filters;
+      for (PicoLineFilter filter : filters) {
+         filter.reset();
+      }
+   }
+   
+   @Override
+   public void writeLine(String indentText, int indentLevel, CharSequence line) throws IOException {
+      final PicoLine filtered = _line;
+      filtered.set(indentText, indentLevel, line);
+      for (PicoLineFilter filter : _filters) {
+         if (!filter.filter(filtered)) {
+            return;
+         }
+      }
+      _out.writeLine(filtered.getIndentText(), filtered.getIndentLevel(), filtered);
+   }
+   
+   @Override
+   public void writeText(CharSequence text) throws IOException {
+      _out.writeText(text);
+   }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the indent prefix for each indent text and depth, so that a line's indent can be written with a single append.
+ * @author agent
+ */
+class IndentPrefixes {
+   private final Map<String, String[]> _prefixes       = new HashMap<>();
+   private String                      _lastIndentText = null;
+   private String[]                    _last           = null;
+   
+   String get(String indentText, int indentLevel) {
+      String[] prefixes;
+      if (indentText == _lastIndentText) {
+         prefixes = _last; // Almost every line in a tree shares the same indent text
+      } else {
+         prefixes = _prefixes.get(indentText);
+      }
+      if (prefixes == null || prefixes.length <= indentLevel) {
+         String[] grown = new String[Math.max(indentLevel + 1, prefixes == null ? 16 : prefixes.length * 2)];
+         if (prefixes != null) {
+            System.arraycopy(prefixes, 0, grown, 0, prefixes.length);
+         }
+         prefixes = grown;
+         _prefixes.put(indentText, prefixes);
+      }
+      _lastIndentText = indentText;
+      _last           = prefixes;
+      
+      String prefix = prefixes[indentLevel];
+      if (prefix == null) {
+         StringBuilder sb = new StringBuilder(indentText.length() * indentLevel);
+         for (int i = 0; i < indentLevel; i++) {
+            sb.append(indentText);
+         }
+         prefix = sb.toString();
+         prefixes[indentLevel] = prefix;
+      }
+      return prefix;
+   }
+}
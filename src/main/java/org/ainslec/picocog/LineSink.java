@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+
+/**
+ * Receives the rendered output of a {@link PicoWriter} tree one line at a time.
+ * @author agent
+ */
+interface LineSink {
+   /**
+    * Writes a single line, prefixed by the indent text repeated indentLevel times and followed by the line separator.
+    * The line may be a reused view, so must not be kept once the call returns.
+    */
+   void writeLine(String indentText, int indentLevel, CharSequence line) throws IOException;
+   
+   /**
+    * Writes text verbatim (used for items that are not lines).
+    */
+   void writeText(CharSequence text) throws IOException;
+}
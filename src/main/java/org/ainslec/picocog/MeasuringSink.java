@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * A {@link LineSink} that writes nothing, and only counts the number of characters that would have been written.
+ * @author agent
+ */
+class MeasuringSink implements LineSink {
+   private final int _lineSeparatorLength;
+   private long      _length = 0;
+   
+   MeasuringSink(String lineSeparator) {
+      _lineSeparatorLength = lineSeparator.length();
+   }
+   
+   @Override
+   public void writeLine(String indentText, int indentLevel, CharSequence line) {
+      _length += (long) indentText.length() * indentLevel + line.length() + _lineSeparatorLength;
+   }
+   
+   @Override
+   public void writeText(CharSequence text) {
+      _length += text.length();
+   }
+   
+   long getLength() {
+      return _length;
+   }
+}
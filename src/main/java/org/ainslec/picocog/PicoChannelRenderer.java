@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Renders {@link PicoWriter} trees straight to a {@link WritableByteChannel} as encoded bytes, without
+ * building an intermediate {@link String} or byte array for the whole output.
+ * <p>
+ * Lines are encoded into a reusable direct buffer which is written out to the channel as it fills up. Indent
+ * prefixes and the line separator are encoded only once per indent text and depth. Instances may be reused
+ * for any number of renders, but are not thread safe.
+ * <p>
+ * Charsets that write a byte order mark (such as "UTF-16") should be given with an explicit byte order
+ * (such as "UTF-16BE"), as indent prefixes are encoded separately from the text of each line.
+ * <p>
+ * Not available in GWT.
+ * @author agent
+ */
+public class PicoChannelRenderer {
+   private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+   private static final int CHAR_BUFFER_SIZE    = 8 * 1024;
+
+   private Charset                 _charset       = StandardCharsets.UTF_8;
+   private String                  _lineSeparator = null; // null means use the line separator of the writer
+   private final int               _bufferSize;
+   private ByteBuffer              _bytes;
+   private CharBuffer              _chars;
+   private CharsetEncoder          _encoder;
+   private Map<String, byte[][]>   _prefixes      = new HashMap<>();
+   private String                  _encodedSeparator;
+   private byte[]                  _separatorBytes;
+
+   public PicoChannelRenderer() {
+      this(DEFAULT_BUFFER_SIZE);
+   }
+
+   /**
+    * @param bufferSize The size, in bytes, of the direct buffer used to stage output for the channel
+    */
+   public PicoChannelRenderer(int bufferSize) {
+      if (bufferSize < 16) {
+         throw new RuntimeException("Buffer size must be at least 16 bytes");
+      }
+      _bufferSize = bufferSize;
+   }
+
+   public Charset getCharset() {
+      return _charset;
+   }
+
+   public void setCharset(Charset charset) {
+      if (charset == null) {
+         throw new RuntimeException("Charset cannot be null");
+      }
+      if (!charset.equals(_charset)) {
+         _charset = charset;
+         _encoder = null;
+         _prefixes.clear();
+         _encodedSeparator = null;
+      }
+   }
+
+   /**
+    * Overrides the line separator of the writers that are rendered.
+    * @param lineSeparator The line separator, or null to use {@link PicoWriter#getLineSeparator()}
+    */
+   public void setLineSeparator(String lineSeparator) {
+      _lineSeparator = lineSeparator;
+   }
+
+   public String getLineSeparator() {
+      return _lineSeparator;
+   }
+
+   /**
+    * Renders a writer to a channel. The channel is not closed.
+    * @param writer The writer to render
+    * @param channel The destination
+    * @throws IOException If the channel fails to accept the output
+    */
+   public void render(PicoWriter writer, WritableByteChannel channel) throws IOException {
+      render(writer, channel, 0);
+   }
+
+   /**
+    * Renders a writer to a channel, as per {@link PicoWriter#toString(int)}. The channel is not closed.
+    * @param writer The writer to render
+    * @param channel The destination
+    * @param indentBase The number of indents to prefix every line with
+    * @throws IOException If the channel fails to accept the output
+    */
+   public void render(PicoWriter writer, WritableByteChannel channel, int indentBase) throws IOException {
+      String lineSeparator = _lineSeparator == null ? writer.getLineSeparator() : _lineSeparator;
+      ChannelSink sink = begin(channel, lineSeparator);
+      try {
+         writer.render(writer.outputContext(sink, lineSeparator, true), indentBase, null, false /* lastRowWasBlank */);
+         sink.finish();
+      } finally {
+         _bytes.clear();
+         _chars.clear();
+      }
+   }
+
+   /**
+    * Renders a writer to a file, replacing any existing content.
+    * @param writer The writer to render
+    * @param path The file to write
+    * @throws IOException If the file cannot be written
+    */
+   public void render(PicoWriter writer, Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+         render(writer, channel);
+      }
+   }
+
+   private ChannelSink begin(WritableByteChannel channel, String lineSeparator) throws CharacterCodingException {
+      if (_bytes == null) {
+         _bytes = ByteBuffer.allocateDirect(_bufferSize);
+         _chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+      }
+      if (_encoder == null) {
+         _encoder = _charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      }
+      _encoder.reset();
+      if (!lineSeparator.equals(_encodedSeparator)) {
+         _separatorBytes   = encode(lineSeparator);
+         _encodedSeparator = lineSeparator;
+      }
+      return new ChannelSink(channel);
+   }
+
+   private byte[] encode(String text) throws CharacterCodingException {
+      ByteBuffer encoded = _charset.newEncoder()
+         .onMalformedInput(CodingErrorAction.REPLACE)
+         .onUnmappableCharacter(CodingErrorAction.REPLACE)
+         .encode(CharBuffer.wrap(text));
+      byte[] bytes = new byte[encoded.remaining()];
+      encoded.get(bytes);
+      return bytes;
+   }
+
+   private byte[] prefix(String indentText, int indentLevel) throws CharacterCodingException {
+      byte[][] prefixes = _prefixes.get(indentText);
+      if (prefixes == null || prefixes.length <= indentLevel) {
+         byte[][] grown = new byte[Math.max(indentLevel + 1, prefixes == null ? 16 : prefixes.length * 2)][];
+         if (prefixes != null) {
+            System.arraycopy(prefixes, 0, grown, 0, prefixes.length);
+         }
+         prefixes = grown;
+         _prefixes.put(indentText, prefixes);
+      }
+      byte[] prefix = prefixes[indentLevel];
+      if (prefix == null) {
+         StringBuilder sb = new StringBuilder(indentText.length() * indentLevel);
+         for (int i = 0; i < indentLevel; i++) {
+            sb.append(indentText);
+         }
+         prefix = encode(sb.toString());
+         prefixes[indentLevel] = prefix;
+      }
+      return prefix;
+   }
+
+   private class ChannelSink implements LineSink {
+      private final WritableByteChannel _channel;
+
+      ChannelSink(WritableByteChannel channel) {
+         _channel = channel;
+      }
+
+      @Override
+      public void writeLine(String indentText, int indentLevel, CharSequence line) throws IOException {
+         if (indentLevel > 0 && indentText.length() > 0) {
+            putBytes(prefix(indentText, indentLevel));
+         }
+         putChars(line);
+         putBytes(_separatorBytes);
+      }
+
+      @Override
+      public void writeText(CharSequence text) throws IOException {
+         putChars(text);
+      }
+
+      private void putBytes(byte[] bytes) throws IOException {
+         int offset = 0;
+         while (offset < bytes.length) {
+            if (!_bytes.hasRemaining()) {
+               drain();
+            }
+            int n = Math.min(bytes.length - offset, _bytes.remaining());
+            _bytes.put(bytes, offset, n);
+            offset += n;
+         }
+      }
+
+      private void putChars(CharSequence text) throws IOException {
+         final int length = text.length();
+         int start = 0;
+         while (start < length) {
+            int n = Math.min(length - start, _chars.remaining());
+            if (text instanceof String) {
+               ((String) text).getChars(start, start + n, _chars.array(), _chars.arrayOffset() + _chars.position());
+               _chars.position(_chars.position() + n);
+            } else {
+               for (int i = start; i < start + n; i++) {
+                  _chars.put(text.charAt(i));
+               }
+            }
+            start += n;
+            encodeChars(false);
+         }
+         if (_chars.position() > 0) {
+            // A dangling high surrogate at the end of the text, encode it as malformed input
+            encodeChars(true);
+            _encoder.reset();
+         }
+      }
+
+      private void encodeChars(boolean endOfInput) throws IOException {
+         _chars.flip();
+         for (;;) {
+            CoderResult result = _encoder.encode(_chars, _bytes, endOfInput);
+            if (result.isOverflow()) {
+               drain();
+            } else if (result.isUnderflow()) {
+               break;
+            } else {
+               result.throwException();
+            }
+         }
+         _chars.compact();
+      }
+
+      private void drain() throws IOException {
+         _bytes.flip();
+         while (_bytes.hasRemaining()) {
+            _channel.write(_bytes);
+         }
+         _bytes.clear();
+      }
+
+      void finish() throws IOException {
+         encodeChars(true);
+         while (_encoder.flush(_bytes).isOverflow()) {
+            drain();
+         }
+         drain();
+      }
+   }
+}
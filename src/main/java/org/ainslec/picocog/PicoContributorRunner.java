@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs {@link SourceCodeContributor}s concurrently. Each contributor added is given its own deferred writer,
+ * reserved in the order the contributors were added, so the output is exactly the same as running them one
+ * after another, however the threads are scheduled.
+ * <pre>
+ * PicoContributorRunner runner = new PicoContributorRunner();
+ * runner.add(classWriter, fieldsContributor);
+ * runner.add(classWriter, methodsContributor);
+ * runner.run(); // Returns once every contributor has finished
+ * </pre>
+ * By default, contributors run on virtual threads when the JVM has them (Java 21 or later), and otherwise on a
+ * pool with one thread per available processor. A contributor must only write to the writer it is given (and
+ * writers it creates from it), and the target writers must not be written to while {@link #run()} is running.
+ * <p>
+ * Writers in concurrent mode (see {@link PicoWriter#setConcurrent(boolean)}) are sealed by the thread that filled
+ * them in, so the tree only needs its top level writer sealed before it is rendered.
+ * <p>
+ * Not available in GWT.
+ * @author agent
+ */
+public class PicoContributorRunner {
+
+   /**
+    * Thrown by {@link PicoContributorRunner#run()} when one or more contributors fail. Holds the failure of every
+    * contributor that failed, in the order the contributors were added.
+    */
+   public static class ContributorException extends RuntimeException {
+      private static final long serialVersionUID = 1L;
+
+      private final List<Failure> _failures;
+
+      ContributorException(List<Failure> failures) {
+         super(failures.size() + " contributor(s) failed, first failure: " + failures.get(0), failures.get(0).getCause());
+         _failures = Collections.unmodifiableList(failures);
+         for (int i = 1; i < failures.size(); i++) {
+            addSuppressed(failures.get(i).getCause());
+         }
+      }
+
+      public List<Failure> getFailures() {
+         return _failures;
+      }
+   }
+
+   /**
+    * The failure of one contributor. The writer it was given is left with whatever it wrote before failing.
+    */
+   public static final class Failure {
+      private final int                   _index;
+      private final SourceCodeContributor _contributor;
+      private final Throwable             _cause;
+
+      Failure(int index, SourceCodeContributor contributor, Throwable cause) {
+         _index       = index;
+         _contributor = contributor;
+         _cause       = cause;
+      }
+
+      /**
+       * @return The position of the contributor, in the order contributors were added (starting at zero)
+       */
+      public int getIndex() {
+         return _index;
+      }
+
+      public SourceCodeContributor getContributor() {
+         return _contributor;
+      }
+
+      public Throwable getCause() {
+         return _cause;
+      }
+
+      @Override
+      public String toString() {
+         return "contributor " + _index + " (" + _contributor + "): " + _cause;
+      }
+   }
+
+   private final ExecutorService             _executor;       // null means create one for each run
+   private final List<SourceCodeContributor> _contributors = new ArrayList<>();
+   private final List<PicoWriter>            _writers      = new ArrayList<>();
+
+   /**
+    * Creates a runner that uses virtual threads where available, and a pool of platform threads otherwise.
+    */
+   public PicoContributorRunner() {
+      _executor = null;
+   }
+
+   /**
+    * @param executor The executor to run contributors on, which is not shut down by the runner
+    */
+   public PicoContributorRunner(ExecutorService executor) {
+      if (executor == null) {
+         throw new RuntimeException("Executor cannot be null");
+      }
+      _executor = executor;
+   }
+
+   /**
+    * Reserves a deferred writer at the current line of the target, for the contributor to fill in when
+    * {@link #run()} is called.
+    * @param target The writer to reserve the deferred writer in
+    * @param contributor The contributor
+    * @return The reserved writer
+    */
+   public PicoWriter add(PicoWriter target, SourceCodeContributor contributor) {
+      if (contributor == null) {
+         throw new RuntimeException("Contributor cannot be null");
+      }
+      PicoWriter writer = target.createDeferredWriter();
+      _contributors.add(contributor);
+      _writers.add(writer);
+      return writer;
+   }
+
+   /**
+    * Runs every contributor added since the last run, and waits for all of them to finish.
+    * @throws ContributorException If any contributor threw, once all of the others have finished
+    */
+   public void run() {
+      final List<SourceCodeContributor> contributors = new ArrayList<>(_contributors);
+      final List<PicoWriter>            writers      = new ArrayList<>(_writers);
+      _contributors.clear();
+      _writers.clear();
+      if (contributors.isEmpty()) {
+         return;
+      }
+
+      ExecutorService executor = _executor == null ? newExecutor() : _executor;
+      try {
+         List<Future<?>> futures = new ArrayList<>(contributors.size());
+         for (int i = 0; i < contributors.size(); i++) {
+            final SourceCodeContributor contributor = contributors.get(i);
+            final PicoWriter            writer      = writers.get(i);
+            futures.add(executor.submit(new Runnable() {
+               @Override
+               public void run() {
+                  contributor.contribute(writer);
+                  if (writer.isConcurrent()) {
+                     writer.seal();
+                  }
+               }
+            }));
+         }
+
+         List<Failure> failures = new ArrayList<>();
+         boolean interrupted = false;
+         for (int i = 0; i < futures.size(); i++) {
+            for (;;) {
+               try {
+                  futures.get(i).get();
+                  break;
+               } catch (InterruptedException e) {
+                  interrupted = true; // Keep waiting, the writers must not be handed back while contributors are still writing to them
+               } catch (ExecutionException e) {
+                  failures.add(new Failure(i, contributors.get(i), e.getCause()));
+                  break;
+               }
+            }
+         }
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+         if (!failures.isEmpty()) {
+            throw new ContributorException(failures);
+         }
+      } finally {
+         if (_executor == null) {
+            executor.shutdown();
+         }
+      }
+   }
+
+   /**
+    * @return A virtual thread per task executor if the JVM has one, otherwise a pool of platform threads
+    */
+   private static ExecutorService newExecutor() {
+      try {
+         Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+         return (ExecutorService) method.invoke(null);
+      } catch (ReflectiveOperationException e) {
+         return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+      }
+   }
+}
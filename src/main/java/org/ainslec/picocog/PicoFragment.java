@@ -0,0 +1,186 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable block of lines, such as a licence header or a common method, that can be inserted into any number
+ * of writers with {@link PicoWriter#writeln(PicoFragment)}, at any indentation level.
+ * <p>
+ * Inserting a fragment does not copy it. The first time a fragment is rendered at a given indentation (indent text
+ * and depth), the rendered text is kept, so each further use at that indentation is a single append. Fragments
+ * are thread safe, and may be shared between writers on different threads.
+ * <pre>
+ * PicoFragment licence = PicoFragment.of(new SourceCodeContributor() {
+ *    public void contribute(PicoWriter w) {
+ *       w.writeln("// Licensed under the Apache License, Version 2.0");
+ *    }
+ * });
+ * topWriter.writeln(licence);
+ * </pre>
+ * @author agent
+ */
+public final class PicoFragment {
+   private final String[]              _lines;
+   private final int[]                 _indents;   // Relative indent of each line, or -1 for text that is not a line
+   private final Map<String, Rendered> _rendered = new HashMap<>();
+   private volatile Rendered           _last     = null;
+
+   private PicoFragment(String[] lines, int[] indents) {
+      _lines   = lines;
+      _indents = indents;
+   }
+
+   /**
+    * Creates a fragment from the current content of a writer. Later changes to the writer do not affect the fragment.
+    * @param writer The writer to take the lines from
+    * @return The fragment
+    */
+   public static PicoFragment of(PicoWriter writer) {
+      final List<String>  lines   = new ArrayList<>();
+      final List<Integer> indents = new ArrayList<>();
+      LineSink capture = new LineSink() {
+         @Override
+         public void writeLine(String indentText, int indentLevel, CharSequence line) {
+            lines.add(line.toString());
+            indents.add(indentLevel);
+         }
+         @Override
+         public void writeText(CharSequence text) {
+            lines.add(text.toString());
+            indents.add(-1);
+         }
+      };
+      try {
+         // Blank rows are normalised where the fragment is used, not here
+         writer.render(new RenderContext(capture, writer.getLineSeparator(), false, false).quiet(), 0, null, false);
+      } catch (IOException e) {
+         throw new RuntimeException(e); // The capturing sink does not throw
+      }
+      int[] indentArray = new int[indents.size()];
+      for (int i = 0; i < indentArray.length; i++) {
+         indentArray[i] = indents.get(i);
+      }
+      return new PicoFragment(lines.toArray(new String[lines.size()]), indentArray);
+   }
+
+   /**
+    * Creates a fragment from the lines written by a contributor.
+    * @param contributor Writes the content of the fragment, at indentation level zero
+    * @return The fragment
+    */
+   public static PicoFragment of(SourceCodeContributor contributor) {
+      PicoWriter writer = new PicoWriter();
+      contributor.contribute(writer);
+      return of(writer);
+   }
+
+   public int getLineCount() {
+      return _lines.length;
+   }
+
+   /**
+    * Renders the fragment, following the same blank row rules as {@link PicoWriter}.
+    * @return true if the last row written (or suppressed) was blank
+    */
+   boolean render(RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) throws IOException {
+      if (!ctx._useRenderCache) {
+         return renderLines(ctx, indentBase, indentText, lastRowWasBlank);
+      }
+      boolean  blankBefore = lastRowWasBlank && ctx._normalizeAdjacentBlankRows;
+      Rendered rendered    = _last;
+      if (rendered == null || !rendered.matches(indentBase, indentText, ctx, blankBefore)) {
+         rendered = rendered(ctx, indentBase, indentText, blankBefore);
+         _last = rendered;
+      }
+      ctx._sink.writeText(rendered._text);
+      return rendered._lastRowWasBlank;
+   }
+
+   private synchronized Rendered rendered(RenderContext ctx, int indentBase, String indentText, boolean blankBefore) throws IOException {
+      String   key      = indentBase + ":" + blankBefore + ":" + ctx._normalizeAdjacentBlankRows + ":" + indentText + ":" + ctx._lineSeparator;
+      Rendered rendered = _rendered.get(key);
+      if (rendered == null) {
+         StringBuilder sb = new StringBuilder();
+         RenderContext textCtx = new RenderContext(new AppendableSink(sb, ctx._lineSeparator), ctx._lineSeparator, ctx._normalizeAdjacentBlankRows, false);
+         boolean lastRowWasBlank = renderLines(textCtx, indentBase, indentText, blankBefore);
+         rendered = new Rendered(indentBase, indentText, ctx, blankBefore, sb.toString(), lastRowWasBlank);
+         _rendered.put(key, rendered);
+      }
+      return rendered;
+   }
+
+   private boolean renderLines(RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) throws IOException {
+      for (int i = 0; i < _lines.length; i++) {
+         final String line = _lines[i];
+         if (_indents[i] < 0) {
+            ctx._sink.writeText(line);
+            continue;
+         }
+         boolean thisRowIsBlank = line.length() == 0;
+         if (ctx._normalizeAdjacentBlankRows && lastRowWasBlank && thisRowIsBlank) {
+            // Don't write the line if we already had a blank line
+         } else {
+            ctx._sink.writeLine(indentText, indentBase + _indents[i], line);
+         }
+         lastRowWasBlank = thisRowIsBlank;
+      }
+      return lastRowWasBlank;
+   }
+
+   @Override
+   public String toString() {
+      PicoWriter writer = new PicoWriter();
+      writer.writeln(this);
+      return writer.toString();
+   }
+
+   /**
+    * The fragment, as rendered at one indentation.
+    */
+   private static final class Rendered {
+      final int     _indentBase;
+      final String  _indentText;
+      final String  _lineSeparator;
+      final boolean _normalizeAdjacentBlankRows;
+      final boolean _blankBefore;
+      final String  _text;
+      final boolean _lastRowWasBlank;
+
+      Rendered(int indentBase, String indentText, RenderContext ctx, boolean blankBefore, String text, boolean lastRowWasBlank) {
+         _indentBase                 = indentBase;
+         _indentText                 = indentText;
+         _lineSeparator              = ctx._lineSeparator;
+         _normalizeAdjacentBlankRows = ctx._normalizeAdjacentBlankRows;
+         _blankBefore                = blankBefore;
+         _text                       = text;
+         _lastRowWasBlank            = lastRowWasBlank;
+      }
+
+      boolean matches(int indentBase, String indentText, RenderContext ctx, boolean blankBefore) {
+         return _indentBase == indentBase
+            && _indentText.equals(indentText)
+            && _lineSeparator.equals(ctx._lineSeparator)
+            && _normalizeAdjacentBlankRows == ctx._normalizeAdjacentBlankRows
+            && _blankBefore == blankBefore;
+      }
+   }
+}
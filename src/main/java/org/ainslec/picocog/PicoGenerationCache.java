@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A cache of generated {@link PicoWriter} trees on disk, so that a generator whose inputs have not changed can be
+ * skipped, and its saved tree rendered instead.
+ * <p>
+ * Each entry has a name (such as the path of the generated file) and a fingerprint of the generator's inputs,
+ * supplied by the caller. An entry is only used if its fingerprint matches.
+ * <pre>
+ * PicoGenerationCache cache = new PicoGenerationCache(Paths.get("target/picocog-cache"));
+ * PicoWriter writer = cache.get("Foo.java", fingerprint, new SourceCodeContributor() {
+ *    public void contribute(PicoWriter w) {
+ *       generateFoo(w);
+ *    }
+ * });
+ * </pre>
+ * Entries are saved with {@link PicoSerializer}, and are written whole, so a cache may be shared between processes.
+ * Not available in GWT.
+ * @author agent
+ */
+public class PicoGenerationCache {
+   private static final int MAGIC = 0x50494343; // "PICC"
+   
+   private final Path _directory;
+   
+   /**
+    * @param directory The directory that holds the entries, which is created when the first entry is saved
+    */
+   public PicoGenerationCache(Path directory) {
+      _directory = directory;
+   }
+   
+   public Path getDirectory() {
+      return _directory;
+   }
+   
+   /**
+    * Loads an entry.
+    * @param name The name of the entry
+    * @param fingerprint The fingerprint of the generator's inputs
+    * @return The saved tree, or null if there is no entry, or it has a different fingerprint, or cannot be read
+    */
+   public PicoWriter load(String name, String fingerprint) {
+      Path path = path(name);
+      if (!Files.isRegularFile(path)) {
+         return null;
+      }
+      try {
+         // Read rather than mapped, as a mapped file cannot be replaced on Windows until the mapping is collected
+         ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+         if (buffer.remaining() < 4 || buffer.getInt() != MAGIC
+               || !readString(buffer).equals(name) || !readString(buffer).equals(fingerprint)) {
+            return null;
+         }
+         return PicoSerializer.read(buffer);
+      } catch (IOException | RuntimeException e) {
+         return null; // Treated as a miss, the entry is replaced when the tree is generated again
+      }
+   }
+   
+   /**
+    * Saves an entry, replacing any entry with the same name.
+    * @param name The name of the entry
+    * @param fingerprint The fingerprint of the generator's inputs
+    * @param writer The generated tree
+    * @throws IOException If the entry cannot be written
+    */
+   public void save(String name, String fingerprint, PicoWriter writer) throws IOException {
+      byte[] nameBytes        = name.getBytes(StandardCharsets.UTF_8);
+      byte[] fingerprintBytes = fingerprint.getBytes(StandardCharsets.UTF_8);
+      byte[] tree             = PicoSerializer.toBytes(writer);
+      ByteBuffer entry = ByteBuffer.allocate(12 + nameBytes.length + fingerprintBytes.length + tree.length);
+      entry.putInt(MAGIC);
+      entry.putInt(nameBytes.length).put(nameBytes);
+      entry.putInt(fingerprintBytes.length).put(fingerprintBytes);
+      entry.put(tree);
+      PicoSerializer.save(entry.array(), path(name));
+   }
+   
+   /**
+    * Loads an entry, or if there is no entry with a matching fingerprint, generates the tree and saves it.
+    * @param name The name of the entry
+    * @param fingerprint The fingerprint of the generator's inputs
+    * @param generator Writes the tree, only called if there is no matching entry
+    * @return The tree
+    * @throws IOException If a newly generated entry cannot be written
+    */
+   public PicoWriter get(String name, String fingerprint, SourceCodeContributor generator) throws IOException {
+      PicoWriter writer = load(name, fingerprint);
+      if (writer == null) {
+         writer = new PicoWriter();
+         generator.contribute(writer);
+         save(name, fingerprint, writer);
+      }
+      return writer;
+   }
+   
+   /**
+    * Removes an entry, if there is one.
+    * @param name The name of the entry
+    * @throws IOException If the entry cannot be removed
+    */
+   public void remove(String name) throws IOException {
+      Files.deleteIfExists(path(name));
+   }
+   
+   /**
+    * @return The file of an entry. Characters that may not be safe in a file name are replaced, and the hash of the
+    * name is added to tell apart names that differ only in those characters (the full name is checked on loading).
+    */
+   private Path path(String name) {
+      StringBuilder sb = new StringBuilder(name.length() + 16);
+      for (int i = 0; i < name.length() && sb.length() < 100; i++) {
+         char c = name.charAt(i);
+         sb.append((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-' ? c : '_');
+      }
+      sb.append('-').append(Integer.toHexString(name.hashCode())).append(".pico");
+      return _directory.resolve(sb.toString());
+   }
+   
+   private static String readString(ByteBuffer buffer) {
+      int length = buffer.getInt();
+      if (length < 0 || length > buffer.remaining()) {
+         throw new IllegalArgumentException("Corrupt entry");
+      }
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+}
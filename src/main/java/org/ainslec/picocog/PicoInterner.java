@@ -0,0 +1,308 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores each distinct line once, however many times it is written, for output that repeats itself (closing braces,
+ * annotations, identical method bodies and so on). Set with {@link PicoWriter#setInterner(PicoInterner)}.
+ * <p>
+ * When a line is flushed, it is looked up by its text and indentation without building a new {@link String}, and
+ * the stored line is reused if there is one. Lines with the same text at different indentation share their text.
+ * When a writer is sealed (see {@link PicoWriter#seal()}), each deferred writer beneath it is fingerprinted, and
+ * deferred writers with identical content share a single copy of it.
+ * <p>
+ * A deferred writer that shares the content of an earlier one renders the earlier writer's deferred writers in
+ * place of its own, so its own deferred writers are no longer part of the rendered tree. In a
+ * {@link PicoLineIndex}, their lines are recorded against the earlier writer's deferred writers, which then each
+ * have a node for every copy.
+ * <p>
+ * An interner may be shared by any number of writers, on any number of threads. It keeps every line and subtree it
+ * has stored until {@link #clear()} is called.
+ * @author agent
+ */
+public final class PicoInterner {
+   private IndentedLine[]                 _lines         = new IndentedLine[256];  // Open addressing, by text and indentation
+   private int                            _lineCount     = 0;
+   private String[]                       _strings       = new String[256];        // Open addressing, by text
+   private int                            _stringCount   = 0;
+   private final Map<Subtree, Subtree>    _subtrees      = new HashMap<>();
+   private long                           _linesAdded    = 0;
+   private long                           _subtreesAdded = 0;
+   
+   /**
+    * @return The stored line with the given text and indentation, stored now if there was none
+    */
+   synchronized IndentedLine line(CharSequence text, int indent) {
+      _linesAdded++;
+      final int hash = hash(text);
+      final int mask = _lines.length - 1;
+      int slot = mix(hash * 31 + indent) & mask;
+      for (IndentedLine line; (line = _lines[slot]) != null; slot = (slot + 1) & mask) {
+         if (line._indent == indent && contentEquals(line._line, text)) {
+            return line;
+         }
+      }
+      IndentedLine line = new IndentedLine(string(text, hash), indent);
+      _lines[slot] = line;
+      if (++_lineCount * 2 > _lines.length) {
+         IndentedLine[] lines = new IndentedLine[_lines.length * 2];
+         for (IndentedLine old : _lines) {
+            if (old != null) {
+               lines[free(lines, mix(old._line.hashCode() * 31 + old._indent))] = old;
+            }
+         }
+         _lines = lines;
+      }
+      return line;
+   }
+   
+   private String string(CharSequence text, int hash) {
+      final int mask = _strings.length - 1;
+      int slot = mix(hash) & mask;
+      for (String string; (string = _strings[slot]) != null; slot = (slot + 1) & mask) {
+         if (contentEquals(string, text)) {
+            return string;
+         }
+      }
+      String string = text.toString();
+      _strings[slot] = string;
+      if (++_stringCount * 2 > _strings.length) {
+         String[] strings = new String[_strings.length * 2];
+         for (String old : _strings) {
+            if (old != null) {
+               strings[free(strings, mix(old.hashCode()))] = old;
+            }
+         }
+         _strings = strings;
+      }
+      return string;
+   }
+   
+   /**
+    * Called for each deferred writer as it is sealed, after the deferred writers beneath it.
+    * @return A content list equal to the writer's content, which may be the writer's own list
+    */
+   synchronized List<PicoWriterItem> subtree(PicoWriter writer) {
+      _subtreesAdded++;
+      Subtree key      = new Subtree(writer);
+      Subtree existing = _subtrees.get(key);
+      if (existing == null) {
+         _subtrees.put(key, key);
+         return key._shape._content;
+      }
+      return existing._shape._content;
+   }
+   
+   /**
+    * @return The number of lines added, including repeats
+    */
+   public synchronized long getLinesAdded() {
+      return _linesAdded;
+   }
+   
+   /**
+    * @return The number of distinct lines (text and indentation) stored
+    */
+   public synchronized int getDistinctLines() {
+      return _lineCount;
+   }
+   
+   /**
+    * @return The number of distinct line texts stored
+    */
+   public synchronized int getDistinctStrings() {
+      return _stringCount;
+   }
+   
+   /**
+    * @return The number of deferred writers fingerprinted when sealed, including repeats
+    */
+   public synchronized long getSubtreesAdded() {
+      return _subtreesAdded;
+   }
+   
+   /**
+    * @return The number of deferred writers whose content is stored, the rest share the content of one of these
+    */
+   public synchronized int getDistinctSubtrees() {
+      return _subtrees.size();
+   }
+   
+   /**
+    * @return The number of lines added for each line stored, e.g. 4.0 if each stored line is used four times on
+    * average, or 1.0 if nothing has been added
+    */
+   public synchronized double getLineDedupRatio() {
+      return _lineCount == 0 ? 1.0 : (double) _linesAdded / _lineCount;
+   }
+   
+   /**
+    * @return The number of deferred writers sealed for each copy of content stored, or 1.0 if none have been sealed
+    */
+   public synchronized double getSubtreeDedupRatio() {
+      return _subtrees.isEmpty() ? 1.0 : (double) _subtreesAdded / _subtrees.size();
+   }
+   
+   /**
+    * Forgets every stored line and subtree, and resets the counts. Writers keep the lines they already hold.
+    */
+   public synchronized void clear() {
+      _lines         = new IndentedLine[256];
+      _lineCount     = 0;
+      _strings       = new String[256];
+      _stringCount   = 0;
+      _subtrees.clear();
+      _linesAdded    = 0;
+      _subtreesAdded = 0;
+   }
+   
+   /**
+    * The same as {@link String#hashCode()}, so that stored strings can be rehashed using their cached hash.
+    */
+   private static int hash(CharSequence text) {
+      int hash = 0;
+      for (int i = 0, length = text.length(); i < length; i++) {
+         hash = 31 * hash + text.charAt(i);
+      }
+      return hash;
+   }
+   
+   private static int mix(int hash) {
+      hash *= 0x9E3779B9;
+      return hash ^ (hash >>> 16);
+   }
+   
+   private static int free(Object[] table, int hash) {
+      final int mask = table.length - 1;
+      int slot = hash & mask;
+      while (table[slot] != null) {
+         slot = (slot + 1) & mask;
+      }
+      return slot;
+   }
+   
+   private static boolean contentEquals(String string, CharSequence text) {
+      final int length = string.length();
+      if (length != text.length()) {
+         return false;
+      }
+      for (int i = 0; i < length; i++) {
+         if (string.charAt(i) != text.charAt(i)) {
+            return false;
+         }
+      }
+      return true;
+   }
+   
+   /**
+    * The content list and generation settings of a writer, as they were when it was sealed. Kept rather than the
+    * writer itself, as a writer may later be reset or recycled and given a new content list.
+    */
+   private static final class Shape {
+      final List<PicoWriterItem> _content;
+      final String               _ic;
+      final boolean              _generate;
+      final boolean              _generateIfEmpty;
+      
+      Shape(PicoWriter writer) {
+         _content         = writer._content;
+         _ic              = writer._ic;
+         _generate        = writer._generate;
+         _generateIfEmpty = writer._generateIfEmpty;
+      }
+      
+      int settingsHash() {
+         return _ic.hashCode() * 4 + (_generate ? 2 : 0) + (_generateIfEmpty ? 1 : 0);
+      }
+      
+      boolean sameSettings(Shape other) {
+         return _ic.equals(other._ic) && _generate == other._generate && _generateIfEmpty == other._generateIfEmpty;
+      }
+   }
+   
+   /**
+    * The fingerprint of a sealed deferred writer. Deferred writers beneath it have already been interned, so those
+    * with identical content share the same content list, and are compared by that list.
+    */
+   private static final class Subtree {
+      final Shape   _shape;
+      final Shape[] _children; // The shape of each item that is a deferred writer, otherwise null
+      final int     _hash;
+      
+      Subtree(PicoWriter writer) {
+         _shape    = new Shape(writer);
+         _children = new Shape[_shape._content.size()];
+         int hash = _shape.settingsHash();
+         for (int i = 0; i < _children.length; i++) {
+            PicoWriterItem item = _shape._content.get(i);
+            if (item instanceof PicoWriter) {
+               Shape child = new Shape((PicoWriter) item);
+               _children[i] = child;
+               hash = 31 * hash + System.identityHashCode(child._content) * 31 + child.settingsHash();
+            } else if (item instanceof IndentedLine) {
+               IndentedLine line = (IndentedLine) item;
+               hash = 31 * hash + line._line.hashCode() * 31 + line._indent;
+            } else {
+               hash = 31 * hash + System.identityHashCode(item);
+            }
+         }
+         _hash = hash;
+      }
+      
+      @Override
+      public int hashCode() {
+         return _hash;
+      }
+      
+      @Override
+      public boolean equals(Object other) {
+         if (!(other instanceof Subtree)) {
+            return false;
+         }
+         Subtree s = (Subtree) other;
+         if (_hash != s._hash || _children.length != s._children.length || !_shape.sameSettings(s._shape)) {
+            return false;
+         }
+         for (int i = 0; i < _children.length; i++) {
+            Shape a = _children[i];
+            Shape b = s._children[i];
+            if (a != null || b != null) {
+               if (a == null || b == null || a._content != b._content || !a.sameSettings(b)) {
+                  return false;
+               }
+            } else if (!itemEquals(_shape._content.get(i), s._shape._content.get(i))) {
+               return false;
+            }
+         }
+         return true;
+      }
+      
+      private static boolean itemEquals(PicoWriterItem a, PicoWriterItem b) {
+         if (a == b) {
+            return true;
+         } else if (a instanceof IndentedLine && b instanceof IndentedLine) {
+            IndentedLine la = (IndentedLine) a;
+            IndentedLine lb = (IndentedLine) b;
+            return la._indent == lb._indent && la._line.equals(lb._line);
+         }
+         return false; // Other items are only equal to themselves
+      }
+   }
+}
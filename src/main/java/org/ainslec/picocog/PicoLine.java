@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * One rendered line, as seen by a {@link PicoLineFilter}: the indent text, the indentation level and the text of the
+ * line, which does not include the indentation or the line separator. The same instance is reused for every line.
+ * @author agent
+ */
+public final class PicoLine implements CharSequence {
+   private String       _indentText;
+   private int          _indentLevel;
+   private CharSequence _text;
+   private int          _length;
+   
+   PicoLine() {
+   }
+   
+   void set(String indentText, int indentLevel, CharSequence text) {
+      _indentText  = indentText;
+      _indentLevel = indentLevel;
+      _text        = text;
+      _length      = text.length();
+   }
+   
+   public String getIndentText() {
+      return _indentText;
+   }
+   
+   /**
+    * @param indentText The text to write once for each level of indentation
+    */
+   public void setIndentText(String indentText) {
+      _indentText = indentText;
+   }
+   
+   public int getIndentLevel() {
+      return _indentLevel;
+   }
+   
+   public void setIndentLevel(int indentLevel) {
+      _indentLevel = indentLevel < 0 ? 0 : indentLevel;
+   }
+   
+   /**
+    * Shortens the line, without copying it.
+    * @param length The new length, which must not be more than the current length
+    */
+   public void setLength(int length) {
+      if (length < 0 || length > _length) {
+         throw new IndexOutOfBoundsException("Length " + length + " is not within 0 to " + _length);
+      }
+      _length = length;
+   }
+   
+   /**
+    * Replaces the text of the line.
+    * @param text The new text, not including the indentation or the line separator
+    */
+   public void setText(CharSequence text) {
+      _text   = text;
+      _length = text.length();
+   }
+   
+   /**
+    * @return true if the line has no text (it may still be indented)
+    */
+   public boolean isBlank() {
+      return _length == 0;
+   }
+   
+   @Override
+   public int length() {
+      return _length;
+   }
+   
+   @Override
+   public char charAt(int index) {
+      if (index < 0 || index >= _length) {
+         throw new IndexOutOfBoundsException("Index " + index + " is not within 0 to " + (_length - 1));
+      }
+      return _text.charAt(index);
+   }
+   
+   @Override
+   public CharSequence subSequence(int start, int end) {
+      if (end > _length) {
+         throw new IndexOutOfBoundsException("End " + end + " is past the length " + _length);
+      }
+      return _text.subSequence(start, end);
+   }
+   
+   @Override
+   public String toString() {
+      return _text.subSequence(0, _length).toString();
+   }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * Changes or drops lines as a {@link PicoWriter} is rendered, in the same pass as the render itself. Filters are
+ * added with {@link PicoWriter#addLineFilter(PicoLineFilter)}, and each line passes through them in the order they
+ * were added. See {@link PicoLineFilters} for the built in filters.
+ * @author agent
+ */
+public interface PicoLineFilter {
+   /**
+    * @param line The line, which may be changed. It is reused for every line, so must not be kept once the call returns.
+    * @return true to keep the line, false to drop it (later filters do not see dropped lines)
+    */
+   boolean filter(PicoLine line);
+   
+   /**
+    * Called at the start of every render, so that a filter that remembers earlier lines can start again. A filter
+    * that remembers earlier lines must not be used by more than one render at a time.
+    */
+   default void reset() {
+   }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * The built in {@link PicoLineFilter}s.
+ * <p>
+ * To write CRLF line endings, use {@link PicoWriter#setLineSeparator(String)}, which is applied in the same pass.
+ * @author agent
+ */
+public final class PicoLineFilters {
+   
+   private static final PicoLineFilter TRIM_TRAILING_WHITESPACE = new PicoLineFilter() {
+      @Override
+      public boolean filter(PicoLine line) {
+         int length = line.length();
+         while (length > 0 && Character.isWhitespace(line.charAt(length - 1))) {
+            length--;
+         }
+         line.setLength(length);
+         if (length == 0) {
+            line.setIndentLevel(0); // The indentation of a blank line is trailing whitespace too
+         }
+         return true;
+      }
+   };
+   
+   private PicoLineFilters() {
+   }
+   
+   /**
+    * @return A filter that removes whitespace from the end of every line, and the indentation of blank lines
+    */
+   public static PicoLineFilter trimTrailingWhitespace() {
+      return TRIM_TRAILING_WHITESPACE;
+   }
+   
+   /**
+    * @param max The longest run of blank lines to keep, any further blank lines in the run are dropped
+    * @return A new filter, that limits runs of blank lines
+    */
+   public static PicoLineFilter maxBlankRows(final int max) {
+      return new PicoLineFilter() {
+         private int _run = 0;
+         
+         @Override
+         public boolean filter(PicoLine line) {
+            if (!line.isBlank()) {
+               _run = 0;
+               return true;
+            }
+            return ++_run <= max;
+         }
+         
+         @Override
+         public void reset() {
+            _run = 0;
+         }
+      };
+   }
+   
+   /**
+    * Changes the indent text of every line, for example to indent with tabs rather than spaces.
+    * @param indentText The text to write once for each level of indentation, e.g. "\t"
+    * @return A filter that replaces the indent text
+    */
+   public static PicoLineFilter indentWith(final String indentText) {
+      return new PicoLineFilter() {
+         @Override
+         public boolean filter(PicoLine line) {
+            line.setIndentText(indentText);
+            return true;
+         }
+      };
+   }
+}
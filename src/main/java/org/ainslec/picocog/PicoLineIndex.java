@@ -0,0 +1,343 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Maps each line of a writer's rendered output back to the writer, and the item of that writer, that produced it,
+ * and each writer to the lines it produced. Built as a side effect of rendering with
+ * {@link PicoWriter#writeTo(Appendable, PicoLineIndex)}, or with {@link #of(PicoWriter)}.
+ * <pre>
+ * PicoLineIndex index = new PicoLineIndex();
+ * topWriter.writeTo(out, index);
+ * ...
+ * PicoWriter source = index.getWriter(diagnostic.getLineNumber());
+ * </pre>
+ * Line numbers start at 1, as reported by compilers. Offsets are in bytes of UTF-8 output, starting at 0.
+ * <p>
+ * Each time a writer is rendered it is a separate node in the index (an attached writer that is rendered twice is
+ * two nodes). Nodes are numbered in the order they start, and each knows its parent, so the nodes that contain a
+ * line can be found by following the parents of {@link #getNode(int)}. Everything is kept in primitive arrays, at
+ * 16 bytes per line and a little more per node.
+ * @author agent
+ */
+public final class PicoLineIndex {
+   private long[]       _offsets     = new long[64];  // The offset of the start of each line
+   private int[]        _lineNodes   = new int[64];   // The innermost node of each line
+   private int[]        _lineItems   = new int[64];   // The item, within that node's writer, of each line
+   private int          _lineCount   = 0;
+   private long         _length      = 0;
+   
+   private PicoWriter[] _nodeWriters = new PicoWriter[16];
+   private int[]        _nodeParents = new int[16];
+   private int[]        _nodeFirst   = new int[16];   // The first line number of each node
+   private int[]        _nodeLast    = new int[16];   // The last line number of each node
+   private int          _nodeCount   = 0;
+   
+   private int[]        _stack       = new int[16];   // The nodes being rendered
+   private int[]        _stackItems  = new int[16];   // The item being rendered by each of them
+   private int          _depth       = 0;
+   private boolean      _atLineStart = true;
+   
+   private Map<PicoWriter, int[]> _writerNodes = null; // Built when first needed
+   
+   /**
+    * Builds the index of a writer's output, without keeping the output.
+    * @param writer The top level writer
+    * @return The index
+    */
+   public static PicoLineIndex of(PicoWriter writer) {
+      PicoLineIndex index = new PicoLineIndex();
+      LineSink discard = new LineSink() {
+         @Override
+         public void writeLine(String indentText, int indentLevel, CharSequence line) {
+         }
+         @Override
+         public void writeText(CharSequence text) {
+         }
+      };
+      try {
+         writer.render(index, discard, 0);
+      } catch (IOException e) {
+         throw new RuntimeException(e); // The discarding sink does not throw
+      }
+      return index;
+   }
+   
+   public int getLineCount() {
+      return _lineCount;
+   }
+   
+   /**
+    * @return The length of the output in bytes
+    */
+   public long getLength() {
+      return _length;
+   }
+   
+   /**
+    * @param line The line number
+    * @return The offset of the start of the line
+    */
+   public long getOffset(int line) {
+      return _offsets[checkLine(line) - 1];
+   }
+   
+   /**
+    * Finds the line that contains an offset, by binary search.
+    * @param offset The offset, from 0 to {@link #getLength()} - 1
+    * @return The line number
+    */
+   public int getLine(long offset) {
+      if (offset < 0 || offset >= _length) {
+         throw new IndexOutOfBoundsException("Offset " + offset + " is not within the output (length " + _length + ")");
+      }
+      int low  = 0;
+      int high = _lineCount - 1;
+      while (low < high) {
+         int mid = (low + high + 1) >>> 1;
+         if (_offsets[mid] <= offset) {
+            low = mid;
+         } else {
+            high = mid - 1;
+         }
+      }
+      return low + 1;
+   }
+   
+   /**
+    * @param line The line number
+    * @return The innermost node that produced the line
+    */
+   public int getNode(int line) {
+      return _lineNodes[checkLine(line) - 1];
+   }
+   
+   /**
+    * @param line The line number
+    * @return The writer that produced the line (the writer of {@link #getNode(int)})
+    */
+   public PicoWriter getWriter(int line) {
+      return _nodeWriters[getNode(line)];
+   }
+   
+   /**
+    * @param line The line number
+    * @return The item of {@link #getWriter(int)} that produced the line, as it was when rendered, e.g. an
+    * {@link IndentedLine}
+    */
+   public PicoWriterItem getItem(int line) {
+      int index = checkLine(line) - 1;
+      return _nodeWriters[_lineNodes[index]].getContent().get(_lineItems[index]);
+   }
+   
+   public int getNodeCount() {
+      return _nodeCount;
+   }
+   
+   public PicoWriter getNodeWriter(int node) {
+      return _nodeWriters[checkNode(node)];
+   }
+   
+   /**
+    * @param node The node
+    * @return The node whose writer rendered this node, or -1 for the top level writer
+    */
+   public int getNodeParent(int node) {
+      return _nodeParents[checkNode(node)];
+   }
+   
+   /**
+    * @param node The node
+    * @return The number of the first line produced by the node or any node beneath it
+    */
+   public int getNodeFirstLine(int node) {
+      return _nodeFirst[checkNode(node)];
+   }
+   
+   /**
+    * @param node The node
+    * @return The number of the last line produced by the node or any node beneath it, which is one less than
+    * {@link #getNodeFirstLine(int)} if the node produced no lines
+    */
+   public int getNodeLastLine(int node) {
+      return _nodeLast[checkNode(node)];
+   }
+   
+   /**
+    * @param writer A writer
+    * @return Every node rendered by the writer, in order, which is empty if the writer was not rendered. This
+    * includes a writer beneath a deferred writer whose content was shared with an identical writer when it was
+    * sealed (see {@link PicoInterner}), as the shared content is rendered in its place.
+    */
+   public int[] getNodes(PicoWriter writer) {
+      if (_writerNodes == null) {
+         Map<PicoWriter, int[]> writerNodes = new IdentityHashMap<>();
+         for (int node = 0; node < _nodeCount; node++) {
+            int[] nodes = writerNodes.get(_nodeWriters[node]);
+            if (nodes == null) {
+               nodes = new int[] { node };
+            } else {
+               int[] grown = new int[nodes.length + 1];
+               System.arraycopy(nodes, 0, grown, 0, nodes.length);
+               grown[nodes.length] = node;
+               nodes = grown;
+            }
+            writerNodes.put(_nodeWriters[node], nodes);
+         }
+         _writerNodes = writerNodes;
+      }
+      int[] nodes = _writerNodes.get(writer);
+      return nodes == null ? new int[0] : nodes.clone();
+   }
+   
+   private int checkLine(int line) {
+      if (line < 1 || line > _lineCount) {
+         throw new IndexOutOfBoundsException("Line " + line + " is not within 1 to " + _lineCount);
+      }
+      return line;
+   }
+   
+   private int checkNode(int node) {
+      if (node < 0 || node >= _nodeCount) {
+         throw new IndexOutOfBoundsException("Node " + node + " is not within 0 to " + (_nodeCount - 1));
+      }
+      return node;
+   }
+   
+   /**
+    * Forgets everything, ready for another render.
+    */
+   void clear() {
+      Arrays.fill(_nodeWriters, 0, _nodeCount, null);
+      _lineCount   = 0;
+      _length      = 0;
+      _nodeCount   = 0;
+      _depth       = 0;
+      _atLineStart = true;
+      _writerNodes = null;
+   }
+   
+   /**
+    * Called as the render starts on a writer.
+    */
+   void enterNode(PicoWriter writer) {
+      if (_nodeCount == _nodeWriters.length) {
+         PicoWriter[] writers = new PicoWriter[_nodeCount * 2];
+         System.arraycopy(_nodeWriters, 0, writers, 0, _nodeCount);
+         _nodeWriters = writers;
+         _nodeParents = grow(_nodeParents);
+         _nodeFirst   = grow(_nodeFirst);
+         _nodeLast    = grow(_nodeLast);
+      }
+      if (_depth == _stack.length) {
+         _stack      = grow(_stack);
+         _stackItems = grow(_stackItems);
+      }
+      int node = _nodeCount++;
+      _nodeWriters[node] = writer;
+      _nodeParents[node] = _depth == 0 ? -1 : _stack[_depth - 1];
+      _nodeFirst[node]   = _lineCount + 1;
+      _stack[_depth]      = node;
+      _stackItems[_depth] = 0;
+      _depth++;
+   }
+   
+   /**
+    * Called before each item of the writer being rendered.
+    */
+   void setItem(int item) {
+      _stackItems[_depth - 1] = item;
+   }
+   
+   /**
+    * Called once the render of a writer has finished.
+    */
+   void leaveNode() {
+      _nodeLast[_stack[--_depth]] = _lineCount;
+   }
+   
+   /**
+    * @return A sink that records the lines written to the given sink
+    */
+   LineSink sink(final LineSink out, final String lineSeparator) {
+      final long separatorBytes = PicoStats.utf8Length(lineSeparator);
+      return new LineSink() {
+         private String _indentText  = null;
+         private long   _indentBytes = 0;
+         
+         @Override
+         public void writeLine(String indentText, int indentLevel, CharSequence line) throws IOException {
+            if (_atLineStart) {
+               startLine();
+            }
+            if (indentLevel > 0) {
+               if (indentText != _indentText) {
+                  _indentText  = indentText;
+                  _indentBytes = PicoStats.utf8Length(indentText);
+               }
+               _length += _indentBytes * indentLevel;
+            }
+            _length += PicoStats.utf8Length(line) + separatorBytes;
+            _atLineStart = true;
+            out.writeLine(indentText, indentLevel, line);
+         }
+         
+         @Override
+         public void writeText(CharSequence text) throws IOException {
+            // Text that is not a line may start, end or hold any number of lines
+            int start = 0;
+            for (int i = 0, length = text.length(); i < length; i++) {
+               if (_atLineStart) {
+                  startLine();
+                  _atLineStart = false;
+               }
+               if (text.charAt(i) == '\n') {
+                  _length += PicoStats.utf8Length(text.subSequence(start, i + 1));
+                  start = i + 1;
+                  _atLineStart = true;
+               }
+            }
+            _length += PicoStats.utf8Length(text.subSequence(start, text.length()));
+            out.writeText(text);
+         }
+      };
+   }
+   
+   private void startLine() {
+      if (_lineCount == _offsets.length) {
+         long[] offsets = new long[_lineCount * 2];
+         System.arraycopy(_offsets, 0, offsets, 0, _lineCount);
+         _offsets   = offsets;
+         _lineNodes = grow(_lineNodes);
+         _lineItems = grow(_lineItems);
+      }
+      _offsets[_lineCount]   = _length;
+      _lineNodes[_lineCount] = _stack[_depth - 1];
+      _lineItems[_lineCount] = _stackItems[_depth - 1];
+      _lineCount++;
+   }
+   
+   private static int[] grow(int[] array) {
+      int[] grown = new int[array.length * 2];
+      System.arraycopy(array, 0, grown, 0, array.length);
+      return grown;
+   }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Renders large {@link PicoWriter} trees on a {@link ForkJoinPool}, rendering sibling deferred writers concurrently
+ * and joining the pieces back together in order. The output is identical to {@link PicoWriter#toString(int)}.
+ * <p>
+ * Only deferred writers whose subtree holds at least {@link #getThreshold()} items are rendered as separate tasks,
+ * smaller ones are rendered inline by the task that owns them. If the whole tree is below the threshold, it is
+ * rendered sequentially on the calling thread, as is a tree whose top level writer has line filters (see
+ * {@link PicoWriter#addLineFilter(PicoLineFilter)}), as filters see the lines in order.
+ * <p>
+ * Render listeners (see {@link PicoWriter#setRenderListener(PicoRenderListener)}) are not told about the writers
+ * rendered by this class, whichever way the tree is rendered, as tasks render writers out of order on other
+ * threads. Column rows that are still pending are flushed, and reported, on the calling thread.
+ * <p>
+ * The tree must not be modified while it is being rendered. Not available in GWT.
+ * @author agent
+ */
+public class PicoParallelRenderer {
+   private static final int DEFAULT_THRESHOLD = 8192;
+
+   private final ForkJoinPool _pool;
+   private int                _threshold = DEFAULT_THRESHOLD;
+
+   public PicoParallelRenderer() {
+      this(ForkJoinPool.commonPool());
+   }
+
+   public PicoParallelRenderer(ForkJoinPool pool) {
+      _pool = pool;
+   }
+
+   public int getThreshold() {
+      return _threshold;
+   }
+
+   /**
+    * @param threshold The minimum number of items (lines and deferred writers, including those of all nested
+    * writers) for a deferred writer to be rendered as a separate task
+    */
+   public void setThreshold(int threshold) {
+      _threshold = threshold < 1 ? 1 : threshold;
+   }
+
+   public String render(PicoWriter writer) {
+      return render(writer, 0);
+   }
+
+   public String render(PicoWriter writer, int indentBase) {
+      StringBuilder sb = new StringBuilder();
+      try {
+         render(writer, sb, indentBase);
+      } catch (IOException e) {
+         throw new RuntimeException(e); // StringBuilder does not throw
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Renders a writer to the supplied output, as per {@link PicoWriter#writeTo(Appendable, int)}.
+    * @param writer The writer to render
+    * @param out The destination
+    * @param indentBase The number of indents to prefix every line with
+    * @throws IOException If the destination fails to accept the text
+    */
+   public void render(PicoWriter writer, Appendable out, int indentBase) throws IOException {
+      Map<PicoWriter, Integer> sizes = new IdentityHashMap<>();
+      if (writer.hasLineFilters() || measure(writer, sizes) < _threshold) {
+         String lineSeparator = writer.getLineSeparator();
+         writer.render(writer.outputContext(new AppendableSink(out, lineSeparator), lineSeparator, true).quiet(), indentBase, null, false /* lastRowWasBlank */);
+         return;
+      }
+      RenderTask task = new RenderTask(writer, sizes, indentBase, null, writer._normalizeAdjacentBlankRows, writer.getLineSeparator());
+      Piece piece;
+      try {
+         piece = _pool.invoke(task);
+      } catch (UncheckedIOException e) {
+         throw e.getCause();
+      }
+      out.append(piece._sb);
+   }
+
+   /**
+    * Flushes every writer in the tree on the calling thread, and records the size of each subtree. The tree is
+    * walked with an explicit stack, so may be nested to any depth.
+    * @return The size of the whole tree, counting the top level writer itself
+    */
+   private static int measure(PicoWriter top, Map<PicoWriter, Integer> sizes) {
+      List<MeasureFrame> frames = new ArrayList<>();
+      int                total  = 0;
+      if (top.beginRender()) {
+         frames.add(new MeasureFrame(top));
+      } else {
+         sizes.put(top, 0);
+      }
+      while (!frames.isEmpty()) {
+         MeasureFrame frame = frames.get(frames.size() - 1);
+         List<PicoWriterItem> content = frame._writer.getContent();
+         if (frame._index < content.size()) {
+            PicoWriterItem item  = content.get(frame._index++);
+            PicoWriter     inner = null;
+            if (item instanceof PicoWriter) {
+               inner = (PicoWriter) item;
+            } else if (item instanceof AttachedWriter) {
+               inner = ((AttachedWriter) item)._writer;
+            } else if (item instanceof CompactLines) {
+               frame._size += ((CompactLines) item).getLineCount();
+            } else if (item instanceof AttachedFragment) {
+               frame._size += ((AttachedFragment) item)._fragment.getLineCount();
+            } else if (item instanceof TextBlock) {
+               frame._size += ((TextBlock) item).getLineCount();
+            } else {
+               frame._size++;
+            }
+            if (inner != null) {
+               if (inner.beginRender()) {
+                  frames.add(new MeasureFrame(inner));
+               } else {
+                  sizes.put(inner, 0);
+                  frame._size++;
+               }
+            }
+         } else {
+            frames.remove(frames.size() - 1);
+            sizes.put(frame._writer, frame._size);
+            if (frames.isEmpty()) {
+               total = frame._size;
+            } else {
+               frames.get(frames.size() - 1)._size += frame._size + 1;
+            }
+         }
+      }
+      return total + 1;
+   }
+   
+   /**
+    * A writer part way through being measured.
+    */
+   private static class MeasureFrame {
+      final PicoWriter _writer;
+      int              _index = 0;
+      int              _size  = 0;
+      
+      MeasureFrame(PicoWriter writer) {
+         _writer = writer;
+      }
+   }
+   
+   /**
+    * A writer part way through being rendered by a task, having been walked into rather than given its own task.
+    */
+   private static class TaskFrame {
+      final PicoWriter _writer;
+      final int        _indentBase;
+      final String     _indentText;
+      int              _index = 0;
+      
+      TaskFrame(PicoWriter writer, int indentBase, String indentText) {
+         _writer     = writer;
+         _indentBase = indentBase;
+         _indentText = indentText;
+      }
+   }
+
+   /**
+    * The rendered text of a run of items, rendered as if the row before it was not blank. Records enough about its
+    * first and last rows to be joined to the preceding piece as though it had been rendered in sequence.
+    */
+   private static class Piece implements LineSink {
+      private final StringBuilder  _sb       = new StringBuilder();
+      private final String         _lineSeparator;
+      private IndentPrefixes       _prefixes = null;
+      private boolean              _hasRows  = false;
+      private boolean              _firstRowBlank;
+      private int                  _firstRowStart;
+      private int                  _firstRowEnd;
+      private boolean              _lastRowBlank = false;
+
+      Piece(String lineSeparator) {
+         _lineSeparator = lineSeparator;
+      }
+
+      @Override
+      public void writeLine(String indentText, int indentLevel, CharSequence line) {
+         int start = _sb.length();
+         if (indentLevel > 0) {
+            if (_prefixes == null) {
+               _prefixes = new IndentPrefixes();
+            }
+            _sb.append(_prefixes.get(indentText, indentLevel));
+         }
+         _sb.append(line);
+         _sb.append(_lineSeparator);
+         boolean blank = line.length() == 0;
+         if (!_hasRows) {
+            _hasRows       = true;
+            _firstRowBlank = blank;
+            _firstRowStart = start;
+            _firstRowEnd   = _sb.length();
+         }
+         // Suppressed rows are always blank rows following a blank row, so the last row written tells us all we need
+         _lastRowBlank = blank;
+      }
+
+      @Override
+      public void writeText(CharSequence text) {
+         _sb.append(text);
+      }
+
+      /**
+       * Appends another piece, dropping its first row if it would have been suppressed had it been rendered in sequence.
+       */
+      void append(Piece next, boolean normalizeAdjacentBlankRows) {
+         if (!next._hasRows) {
+            _sb.append(next._sb);
+            return;
+         }
+         if (_hasRows) {
+            if (normalizeAdjacentBlankRows && _lastRowBlank && next._firstRowBlank) {
+               _sb.append(next._sb, 0, next._firstRowStart);
+               _sb.append(next._sb, next._firstRowEnd, next._sb.length());
+            } else {
+               _sb.append(next._sb);
+            }
+         } else {
+            int offset = _sb.length();
+            _sb.append(next._sb);
+            _hasRows       = true;
+            _firstRowBlank = next._firstRowBlank;
+            _firstRowStart = offset + next._firstRowStart;
+            _firstRowEnd   = offset + next._firstRowEnd;
+         }
+         _lastRowBlank = next._lastRowBlank;
+      }
+   }
+
+   private class RenderTask extends RecursiveTask<Piece> {
+      private static final long serialVersionUID = 1L;
+
+      private final PicoWriter               _writer;
+      private final Map<PicoWriter, Integer> _sizes;
+      private final int                      _indentBase;
+      private final String                   _indentText;
+      private final boolean                  _normalizeAdjacentBlankRows;
+      private final String                   _lineSeparator;
+
+      RenderTask(PicoWriter writer, Map<PicoWriter, Integer> sizes, int indentBase, String indentText, boolean normalizeAdjacentBlankRows, String lineSeparator) {
+         _writer                     = writer;
+         _sizes                      = sizes;
+         _indentBase                 = indentBase;
+         _indentText                 = indentText;
+         _normalizeAdjacentBlankRows = normalizeAdjacentBlankRows;
+         _lineSeparator              = lineSeparator;
+      }
+
+      /**
+       * Renders the task's writer, forking a new task for each large deferred writer beneath it. A deferred writer
+       * holding nearly all of the task's work is walked into instead, as forking it would leave this task with
+       * nothing to do, and deep chains of such writers would otherwise become deep chains of waiting tasks.
+       */
+      @Override
+      protected Piece compute() {
+         List<Object>    parts   = new ArrayList<>(); // Pieces and forked tasks, in output order
+         Piece           current = new Piece(_lineSeparator);
+         // Kept output (see PicoWriter.setIncrementalRender) is not used, as pieces need to see every row to be joined correctly
+         RenderContext   ctx     = new RenderContext(current, _lineSeparator, _normalizeAdjacentBlankRows, false).quiet();
+         List<TaskFrame> frames  = new ArrayList<>();
+         final int       size    = _sizes.get(_writer);
+         try {
+            if (_writer.beginRender()) {
+               frames.add(new TaskFrame(_writer, _indentBase, _indentText));
+            }
+            while (!frames.isEmpty()) {
+               TaskFrame  frame  = frames.get(frames.size() - 1);
+               PicoWriter writer = frame._writer;
+               if (frame._index == writer.getContent().size()) {
+                  frames.remove(frames.size() - 1);
+                  continue;
+               }
+               PicoWriterItem item       = writer.getContent().get(frame._index++);
+               PicoWriter     inner      = null;
+               int            indentBase = frame._indentBase;
+               String         indentText = frame._indentText;
+               if (item instanceof PicoWriter) {
+                  inner = (PicoWriter) item;
+               } else if (item instanceof AttachedWriter) {
+                  AttachedWriter aw = (AttachedWriter) item;
+                  inner      = aw._writer;
+                  indentBase = indentBase + aw._indentOffset;
+                  indentText = indentText == null ? writer.getIndentText() : indentText;
+               }
+               int innerSize = inner == null ? 0 : _sizes.get(inner);
+               if (inner == null || innerSize < _threshold) {
+                  current._lastRowBlank = writer.renderItem(item, ctx, frame._indentBase, frame._indentText, current._lastRowBlank);
+               } else if (innerSize > size - _threshold) {
+                  if (inner.beginRender()) {
+                     frames.add(new TaskFrame(inner, indentBase, indentText));
+                  }
+               } else {
+                  RenderTask child = new RenderTask(inner, _sizes, indentBase, indentText, _normalizeAdjacentBlankRows, _lineSeparator);
+                  child.fork();
+                  parts.add(current);
+                  parts.add(child);
+                  current = new Piece(_lineSeparator);
+                  ctx     = ctx.withSink(current);
+               }
+            }
+         } catch (IOException e) {
+            throw new UncheckedIOException(e); // Pieces do not throw
+         }
+         parts.add(current);
+
+         Piece result = (Piece) parts.get(0);
+         for (int i = 1; i < parts.size(); i++) {
+            Object part = parts.get(i);
+            result.append(part instanceof Piece ? (Piece) part : ((RenderTask) part).join(), _normalizeAdjacentBlankRows);
+         }
+         return result;
+      }
+   }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * Told when writers are rendered, and when rows of columns are flushed, see
+ * {@link PicoWriter#setRenderListener(PicoRenderListener)}. Renders of nested writers are reported within the
+ * render of the writer that holds them.
+ * <p>
+ * Each started call returns a token (such as a start time) which is handed back to the matching finished call.
+ * The listener is shared by every writer in the tree, so may be called from any thread that writes to or renders
+ * part of it. Renders by {@link PicoParallelRenderer} are not reported.
+ * @author agent
+ */
+public interface PicoRenderListener {
+   /**
+    * @param writer The writer about to be rendered
+    * @return A token to pass to {@link #renderFinished(PicoWriter, Object)}, may be null
+    */
+   Object renderStarted(PicoWriter writer);
+   
+   void renderFinished(PicoWriter writer, Object token);
+   
+   /**
+    * @param writer The writer the rows were written to
+    * @param rows The number of rows about to be aligned and added to the writer
+    * @return A token to pass to {@link #flushFinished(PicoWriter, Object)}, may be null
+    */
+   Object flushStarted(PicoWriter writer, int rows);
+   
+   void flushFinished(PicoWriter writer, Object token);
+}
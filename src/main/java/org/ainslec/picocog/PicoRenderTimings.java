@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A {@link PicoRenderListener} that totals the time spent rendering each writer (including the writers beneath it)
+ * and flushing its column rows, across any number of renders.
+ * <pre>
+ * PicoRenderTimings timings = new PicoRenderTimings();
+ * topWriter.setRenderListener(timings);
+ * topWriter.writeTo(out);
+ * long methodsNanos = timings.getRenderNanos(methodsWriter);
+ * </pre>
+ * Thread safe, as column rows may be flushed on other threads (for example by {@link PicoContributorRunner}), and
+ * a sealed tree may be rendered by several threads at once. Not available in GWT.
+ * @author agent
+ */
+public class PicoRenderTimings implements PicoRenderListener {
+   private final Map<PicoWriter, long[]> _renderNanos = new IdentityHashMap<>();
+   private final Map<PicoWriter, long[]> _flushNanos  = new IdentityHashMap<>();
+
+   @Override
+   public Object renderStarted(PicoWriter writer) {
+      return System.nanoTime();
+   }
+
+   @Override
+   public void renderFinished(PicoWriter writer, Object token) {
+      long nanos = System.nanoTime() - (Long) token;
+      add(_renderNanos, writer, nanos);
+   }
+
+   @Override
+   public Object flushStarted(PicoWriter writer, int rows) {
+      return System.nanoTime();
+   }
+
+   @Override
+   public void flushFinished(PicoWriter writer, Object token) {
+      long nanos = System.nanoTime() - (Long) token;
+      add(_flushNanos, writer, nanos);
+   }
+
+   private synchronized void add(Map<PicoWriter, long[]> totals, PicoWriter writer, long nanos) {
+      long[] total = totals.get(writer);
+      if (total == null) {
+         total = new long[1];
+         totals.put(writer, total);
+      }
+      total[0] += nanos;
+   }
+
+   /**
+    * @return The total time spent rendering the writer and everything beneath it, in nanoseconds
+    */
+   public synchronized long getRenderNanos(PicoWriter writer) {
+      long[] total = _renderNanos.get(writer);
+      return total == null ? 0 : total[0];
+   }
+
+   /**
+    * @return The total time spent aligning and flushing the column rows of the writer, in nanoseconds
+    */
+   public synchronized long getFlushNanos(PicoWriter writer) {
+      long[] total = _flushNanos.get(writer);
+      return total == null ? 0 : total[0];
+   }
+
+   public synchronized void clear() {
+      _renderNanos.clear();
+      _flushNanos.clear();
+   }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves a {@link PicoWriter} tree, part built or finished, in a compact binary form, and loads it back. The loaded
+ * tree has the same deferred writers, indentation, pending text and settings, so generation can carry on where it
+ * left off, or the tree can be rendered straight away.
+ * <p>
+ * Each distinct string (line text, indent text and so on) is stored once, in a string table, and every number is
+ * stored as a varint. Large files are memory mapped when loaded.
+ * <p>
+ * Lazy writers are filled in before being saved. Fragments, text blocks and compact lines are saved as ordinary
+ * lines. Render listeners, line filters and pools are not saved. A writer that is streaming cannot be saved.
+ * Not available in GWT.
+ * @author agent
+ */
+public final class PicoSerializer {
+   private static final int MAGIC         = 0x5049434F; // "PICO"
+   private static final int VERSION       = 1;
+   private static final int MAP_THRESHOLD = 1 << 16;    // Smaller files are read rather than mapped
+   
+   // Item tags
+   private static final int END      = 0;
+   private static final int LINE     = 1;
+   private static final int TEXT     = 2;
+   private static final int DEFERRED = 3;
+   private static final int ATTACHED = 4;
+   
+   // Writer flags
+   private static final int GENERATE_IF_EMPTY = 1;
+   private static final int GENERATE          = 1 << 1;
+   private static final int NORMALIZE         = 1 << 2;
+   private static final int DIRTY             = 1 << 3;
+   private static final int ALIGNMENT_GROUP   = 1 << 4;
+   private static final int CONCURRENT        = 1 << 5;
+   private static final int COMPACT           = 1 << 6;
+   private static final int INCREMENTAL       = 1 << 7;
+   private static final int SEALED            = 1 << 8;
+   
+   private PicoSerializer() {
+   }
+   
+   public static byte[] toBytes(PicoWriter writer) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try {
+         write(writer, out);
+      } catch (IOException e) {
+         throw new RuntimeException(e); // ByteArrayOutputStream does not throw
+      }
+      return out.toByteArray();
+   }
+   
+   /**
+    * Writes a writer, and every writer beneath it, to a stream. The stream is not closed.
+    * @param writer The top level writer
+    * @param out The destination
+    * @throws IOException If the stream fails
+    */
+   public static void write(PicoWriter writer, OutputStream out) throws IOException {
+      Encoder encoder = new Encoder();
+      encoder.encode(writer);
+      VarintOutput header = new VarintOutput();
+      header.writeInt(MAGIC);
+      header.writeVarint(VERSION);
+      header.writeVarint(encoder._table.size());
+      for (String string : encoder._table) {
+         byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+         header.writeVarint(bytes.length);
+         header.write(bytes, 0, bytes.length);
+      }
+      header.writeTo(out);
+      encoder._body.writeTo(out);
+   }
+   
+   /**
+    * Saves a writer to a file, replacing any existing file. The file is written under another name first, then
+    * moved into place, so a reader never sees part of a file.
+    * @param writer The top level writer
+    * @param path The file
+    * @throws IOException If the file cannot be written
+    */
+   public static void save(PicoWriter writer, Path path) throws IOException {
+      save(toBytes(writer), path);
+   }
+   
+   static void save(byte[] bytes, Path path) throws IOException {
+      Path dir = path.toAbsolutePath().getParent();
+      if (dir != null) {
+         Files.createDirectories(dir);
+      }
+      Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+      try {
+         Files.write(temp, bytes);
+         try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+         }
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+   }
+   
+   public static PicoWriter fromBytes(byte[] bytes) throws IOException {
+      return read(ByteBuffer.wrap(bytes));
+   }
+   
+   /**
+    * Loads a writer saved by {@link #save(PicoWriter, Path)}.
+    * @param path The file
+    * @return The top level writer
+    * @throws IOException If the file cannot be read, or does not hold a saved writer
+    */
+   public static PicoWriter load(Path path) throws IOException {
+      return read(open(path));
+   }
+   
+   /**
+    * @return The content of a file, memory mapped if it is large
+    */
+   private static ByteBuffer open(Path path) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+         long size = channel.size();
+         if (size >= MAP_THRESHOLD) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+         }
+         ByteBuffer buffer = ByteBuffer.allocate((int) size);
+         while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // Keep reading
+         }
+         buffer.flip();
+         return buffer;
+      }
+   }
+   
+   /**
+    * Reads a writer, starting at the buffer's position. The buffer is left positioned just past the writer.
+    * @param buffer The saved writer
+    * @return The top level writer
+    * @throws IOException If the buffer does not hold a saved writer
+    */
+   public static PicoWriter read(ByteBuffer buffer) throws IOException {
+      try {
+         if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a saved PicoWriter");
+         }
+         int version = readVarint(buffer);
+         if (version != VERSION) {
+            throw new IOException("Unsupported PicoWriter format version " + version);
+         }
+         String[] table = new String[readVarint(buffer)];
+         byte[]   bytes = new byte[256];
+         for (int i = 0; i < table.length; i++) {
+            int length = readVarint(buffer);
+            if (length > bytes.length) {
+               bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            table[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+         }
+         return new Decoder(buffer, table).decode();
+      } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+         throw new IOException("Saved PicoWriter is truncated or corrupt", e);
+      }
+   }
+   
+   private static int readVarint(ByteBuffer buffer) throws IOException {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+         byte b = buffer.get();
+         value |= (b & 0x7F) << shift;
+         if (b >= 0) {
+            return value;
+         }
+      }
+      throw new IOException("Malformed varint");
+   }
+   
+   /**
+    * Walks the tree with an explicit stack, so it may be nested to any depth, writing the body and building the
+    * string table as it goes.
+    */
+   private static class Encoder {
+      final VarintOutput              _body    = new VarintOutput();
+      final List<String>              _table   = new ArrayList<>();
+      final Map<String, Integer>      _strings = new HashMap<>();
+      final Map<PicoWriter, Integer>  _ids     = new IdentityHashMap<>();
+      final List<PicoWriter>          _writers = new ArrayList<>();
+      final List<Integer>             _indices = new ArrayList<>();
+      
+      // Receives the lines of items that are saved as ordinary lines
+      final LineSink _lines = new LineSink() {
+         @Override
+         public void writeLine(String indentText, int indentLevel, CharSequence line) {
+            _body.writeVarint(LINE);
+            _body.writeVarint(string(line.toString()));
+            _body.writeVarint(indentLevel);
+         }
+         @Override
+         public void writeText(CharSequence text) {
+            _body.writeVarint(TEXT);
+            _body.writeVarint(string(text.toString()));
+         }
+      };
+      
+      void encode(PicoWriter top) throws IOException {
+         // Every line is passed on, blank rows are normalised when the loaded tree is rendered
+         RenderContext ctx = new RenderContext(_lines, top._lineSeparator, false, false).quiet();
+         writer(top);
+         while (!_writers.isEmpty()) {
+            int        last   = _writers.size() - 1;
+            PicoWriter writer = _writers.get(last);
+            int        index  = _indices.get(last);
+            if (index == writer._content.size()) {
+               _body.writeVarint(END);
+               _writers.remove(last);
+               _indices.remove(last);
+               continue;
+            }
+            _indices.set(last, index + 1);
+            PicoWriterItem item = writer._content.get(index);
+            if (item instanceof IndentedLine) {
+               IndentedLine il = (IndentedLine) item;
+               _body.writeVarint(LINE);
+               _body.writeVarint(string(il._line));
+               _body.writeVarint(il._indent);
+            } else if (item instanceof PicoWriter) {
+               _body.writeVarint(DEFERRED);
+               writer((PicoWriter) item);
+            } else if (item instanceof AttachedWriter) {
+               AttachedWriter aw = (AttachedWriter) item;
+               _body.writeVarint(ATTACHED);
+               _body.writeVarint(aw._indentOffset);
+               writer(aw._writer);
+            } else {
+               writer.renderItem(item, ctx, 0, writer._ic, false);
+            }
+         }
+      }
+      
+      /**
+       * Writes the id of a writer. The first time a writer is seen, its settings follow, and it is pushed so that
+       * its content is written next.
+       */
+      void writer(PicoWriter writer) {
+         Integer id = _ids.get(writer);
+         if (id != null) {
+            _body.writeVarint(id);
+            return;
+         }
+         if (writer._stream != null) {
+            throw new RuntimeException("A streaming writer cannot be saved");
+         }
+         if (writer._concurrent && !writer._sealed) {
+            throw new RuntimeException("A concurrent writer must be sealed before it is saved");
+         }
+         if (writer._lazyContributor != null) {
+            writer.fillLazy();
+         }
+         _ids.put(writer, _ids.size());
+         _body.writeVarint(_ids.size() - 1);
+         
+         int flags = (writer._generateIfEmpty ? GENERATE_IF_EMPTY : 0)
+            | (writer._generate ? GENERATE : 0)
+            | (writer._normalizeAdjacentBlankRows ? NORMALIZE : 0)
+            | (writer._isDirty ? DIRTY : 0)
+            | (writer._alignmentGroup ? ALIGNMENT_GROUP : 0)
+            | (writer._concurrent ? CONCURRENT : 0)
+            | (writer._compact ? COMPACT : 0)
+            | (writer._incremental ? INCREMENTAL : 0)
+            | (writer._sealed ? SEALED : 0);
+         _body.writeVarint(flags);
+         _body.writeVarint(writer._indents);
+         _body.writeVarint(writer._initialIndents);
+         _body.writeVarint(writer._numLines);
+         _body.writeVarint(string(writer._ic));
+         _body.writeVarint(string(writer._lineSeparator));
+         _body.writeVarint(string(writer._sb.toString()));
+         
+         ColumnAlignment[] alignments = writer._columnAlignments;
+         _body.writeVarint(alignments == null ? 0 : alignments.length + 1);
+         if (alignments != null) {
+            for (ColumnAlignment alignment : alignments) {
+               _body.writeVarint(alignment == null ? 0 : alignment.ordinal() + 1);
+            }
+         }
+         
+         // Rows waiting to be aligned
+         ColumnAligner rows     = writer._rows;
+         int           rowCount = rows == null ? 0 : rows.getRowCount();
+         _body.writeVarint(rowCount);
+         for (int row = 0, cell = 0; row < rowCount; row++) {
+            int rowEnd = rows.getRowEnd(row);
+            _body.writeVarint(rows.getRowIndent(row));
+            _body.writeVarint(rowEnd - cell);
+            for (; cell < rowEnd; cell++) {
+               String value = rows.getCell(cell);
+               _body.writeVarint(value == null ? 0 : string(value) + 1);
+            }
+         }
+         
+         _writers.add(writer);
+         _indices.add(0);
+      }
+      
+      int string(String string) {
+         Integer index = _strings.get(string);
+         if (index == null) {
+            index = _table.size();
+            _strings.put(string, index);
+            _table.add(string);
+         }
+         return index;
+      }
+   }
+   
+   private static class Decoder {
+      final ByteBuffer       _buffer;
+      final String[]         _table;
+      final List<PicoWriter> _writers = new ArrayList<>(); // Indexed by id
+      final List<PicoWriter> _stack   = new ArrayList<>();
+      
+      Decoder(ByteBuffer buffer, String[] table) {
+         _buffer = buffer;
+         _table  = table;
+      }
+      
+      PicoWriter decode() throws IOException {
+         PicoWriter top = writer(null);
+         while (!_stack.isEmpty()) {
+            PicoWriter writer = _stack.get(_stack.size() - 1);
+            int        tag    = readVarint(_buffer);
+            switch (tag) {
+               case END:
+                  _stack.remove(_stack.size() - 1);
+                  break;
+               case LINE:
+                  String line = string();
+                  writer._content.add(new IndentedLine(line, readVarint(_buffer)));
+                  break;
+               case TEXT:
+                  writer._content.add(new Text(string()));
+                  break;
+               case DEFERRED:
+                  PicoWriter deferred = writer(writer);
+                  if (deferred._parent == null) {
+                     deferred._parent = writer; // Seen first as an attached writer
+                  }
+                  writer._content.add(deferred);
+                  break;
+               case ATTACHED:
+                  int        indentOffset = readVarint(_buffer);
+                  PicoWriter inner        = writer(null);
+                  if (writer._incremental) {
+                     inner.addAttachedTo(writer);
+                  }
+                  writer._content.add(new AttachedWriter(inner, indentOffset));
+                  break;
+               default:
+                  throw new IOException("Unknown item tag " + tag);
+            }
+         }
+         return top;
+      }
+      
+      /**
+       * Reads the id of a writer, followed by its settings if it has not been seen before, in which case it is pushed
+       * so that its content is read next.
+       */
+      PicoWriter writer(PicoWriter parent) throws IOException {
+         int id = readVarint(_buffer);
+         if (id < _writers.size()) {
+            return _writers.get(id);
+         }
+         if (id != _writers.size()) {
+            throw new IOException("Unexpected writer id " + id);
+         }
+         PicoWriter writer = new PicoWriter();
+         _writers.add(writer);
+         
+         int flags = readVarint(_buffer);
+         writer._generateIfEmpty            = (flags & GENERATE_IF_EMPTY) != 0;
+         writer._generate                   = (flags & GENERATE) != 0;
+         writer._normalizeAdjacentBlankRows = (flags & NORMALIZE) != 0;
+         writer._isDirty                    = (flags & DIRTY) != 0;
+         writer._alignmentGroup             = (flags & ALIGNMENT_GROUP) != 0;
+         writer._concurrent                 = (flags & CONCURRENT) != 0;
+         writer._compact                    = (flags & COMPACT) != 0;
+         writer._incremental                = (flags & INCREMENTAL) != 0;
+         writer._indents                    = readVarint(_buffer);
+         writer._initialIndents             = readVarint(_buffer);
+         writer._numLines                   = readVarint(_buffer);
+         writer._ic                         = string();
+         writer._lineSeparator              = string();
+         writer._sb.append(string());
+         writer._parent                     = parent;
+         
+         int alignments = readVarint(_buffer);
+         if (alignments > 0) {
+            ColumnAlignment[] values = ColumnAlignment.values();
+            writer._columnAlignments = new ColumnAlignment[alignments - 1];
+            for (int i = 0; i < alignments - 1; i++) {
+               int alignment = readVarint(_buffer);
+               writer._columnAlignments[i] = alignment == 0 ? null : values[alignment - 1];
+            }
+         }
+         
+         int rowCount = readVarint(_buffer);
+         if (rowCount > 0) {
+            writer._rows = new ColumnAligner();
+            for (int row = 0; row < rowCount; row++) {
+               int      indent = readVarint(_buffer);
+               String[] cells  = new String[readVarint(_buffer)];
+               for (int cell = 0; cell < cells.length; cell++) {
+                  int index = readVarint(_buffer);
+                  cells[cell] = index == 0 ? null : _table[index - 1];
+               }
+               writer._rows.addRow(cells, indent);
+            }
+         }
+         
+         // Content is added to the item list directly, so sealing the writer now does not get in the way
+         writer._sealed = (flags & SEALED) != 0;
+         _stack.add(writer);
+         return writer;
+      }
+      
+      String string() throws IOException {
+         return _table[readVarint(_buffer)];
+      }
+   }
+   
+   /**
+    * Text that is not a line, such as an item of an unknown type, rendered verbatim.
+    */
+   private static class Text implements PicoWriterItem {
+      final String _text;
+      
+      Text(String text) {
+         _text = text;
+      }
+      
+      @Override public String toString() { return _text; }
+   }
+   
+   private static class VarintOutput extends ByteArrayOutputStream {
+      void writeVarint(int value) {
+         while ((value & ~0x7F) != 0) {
+            write((value & 0x7F) | 0x80);
+            value >>>= 7;
+         }
+         write(value);
+      }
+      
+      void writeInt(int value) {
+         write(value >>> 24);
+         write(value >>> 16);
+         write(value >>> 8);
+         write(value);
+      }
+   }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes many files, each rendered from its own top level {@link PicoWriter}, using a bounded number of threads.
+ * A file whose content has not changed is left untouched, so that its timestamp does not trigger needless
+ * recompilation.
+ * <pre>
+ * PicoSession session = new PicoSession();
+ * session.add(outputDir.resolve("A.java"), writerA);
+ * session.add(outputDir.resolve("B.java"), writerB);
+ * for (PicoSession.FileResult result : session.write()) {
+ *    System.out.println(result);
+ * }
+ * </pre>
+ * The writers are rendered concurrently, so must not be modified while {@link #write()} runs. Any writer that is
+ * attached to more than one of them should be sealed first (see {@link PicoWriter#seal()}).
+ * <p>
+ * Not available in GWT.
+ * @author agent
+ */
+public class PicoSession {
+   /**
+    * What happened to one file.
+    */
+   public enum Status {
+      /** The file did not exist, or its content was different, and it has been written */
+      WRITTEN,
+      /** The file already held exactly the rendered content, and was not touched */
+      UNCHANGED
+   }
+
+   /**
+    * The outcome of writing one file, with timings.
+    */
+   public static final class FileResult {
+      private final Path   _path;
+      private final Status _status;
+      private final long   _bytes;
+      private final long   _renderNanos;
+      private final long   _writeNanos;
+
+      FileResult(Path path, Status status, long bytes, long renderNanos, long writeNanos) {
+         _path        = path;
+         _status      = status;
+         _bytes       = bytes;
+         _renderNanos = renderNanos;
+         _writeNanos  = writeNanos;
+      }
+
+      public Path getPath() {
+         return _path;
+      }
+
+      public Status getStatus() {
+         return _status;
+      }
+
+      /**
+       * @return The size of the rendered file, in bytes
+       */
+      public long getBytes() {
+         return _bytes;
+      }
+
+      /**
+       * @return The time taken to render and encode the writer, in nanoseconds
+       */
+      public long getRenderNanos() {
+         return _renderNanos;
+      }
+
+      /**
+       * @return The time taken to compare against the existing file and (if needed) write it, in nanoseconds
+       */
+      public long getWriteNanos() {
+         return _writeNanos;
+      }
+
+      @Override
+      public String toString() {
+         return _path + " " + _status + " (" + _bytes + " bytes, render " + _renderNanos / 1000 + "us, write " + _writeNanos / 1000 + "us)";
+      }
+   }
+
+   private final Map<Path, PicoWriter> _outputs  = new LinkedHashMap<>();
+   private final int                   _threads;
+   private Charset                     _charset  = StandardCharsets.UTF_8;
+
+   /**
+    * Creates a session that uses one thread per available processor.
+    */
+   public PicoSession() {
+      this(Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * @param threads The maximum number of files rendered and written at the same time
+    */
+   public PicoSession(int threads) {
+      if (threads < 1) {
+         throw new RuntimeException("A session needs at least one thread");
+      }
+      _threads = threads;
+   }
+
+   public Charset getCharset() {
+      return _charset;
+   }
+
+   public void setCharset(Charset charset) {
+      if (charset == null) {
+         throw new RuntimeException("Charset cannot be null");
+      }
+      _charset = charset;
+   }
+
+   /**
+    * Adds a file to the session.
+    * @param path The file to write, missing parent directories are created
+    * @param writer The content of the file
+    * @return Returns the current instance of the {@link PicoSession} object
+    */
+   public PicoSession add(Path path, PicoWriter writer) {
+      if (path == null || writer == null) {
+         throw new RuntimeException("Path and writer cannot be null");
+      }
+      Path key = path.toAbsolutePath().normalize();
+      if (_outputs.containsKey(key)) {
+         throw new RuntimeException("A writer has already been added for " + path);
+      }
+      _outputs.put(key, writer);
+      return this;
+   }
+
+   public int size() {
+      return _outputs.size();
+   }
+
+   /**
+    * Renders every writer and writes each file whose content has changed. Every file is attempted even if some fail.
+    * @return The result for each file, in the order the files were added
+    * @throws IOException If any file could not be written, with the failure of each further file as a suppressed exception
+    */
+   public List<FileResult> write() throws IOException {
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(_threads, Math.max(1, _outputs.size())));
+      try {
+         return write(executor);
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * As per {@link #write()}, using the supplied executor rather than one owned by the session.
+    */
+   public List<FileResult> write(ExecutorService executor) throws IOException {
+      final Charset             charset = _charset;
+      final Queue<RenderBuffer> buffers = new ConcurrentLinkedQueue<>();
+      List<Future<FileResult>>  futures = new ArrayList<>(_outputs.size());
+      for (final Map.Entry<Path, PicoWriter> output : _outputs.entrySet()) {
+         futures.add(executor.submit(new Callable<FileResult>() {
+            @Override
+            public FileResult call() throws IOException {
+               RenderBuffer buffer = buffers.poll();
+               if (buffer == null) {
+                  buffer = new RenderBuffer(charset);
+               }
+               try {
+                  return buffer.writeFile(output.getKey(), output.getValue());
+               } finally {
+                  buffers.add(buffer);
+               }
+            }
+         }));
+      }
+
+      List<FileResult> results = new ArrayList<>(futures.size());
+      IOException      failure = null;
+      for (Future<FileResult> future : futures) {
+         try {
+            results.add(getUninterruptibly(future));
+         } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (failure == null) {
+               failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            } else {
+               failure.addSuppressed(cause);
+            }
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+      return Collections.unmodifiableList(results);
+   }
+
+   private static <T> T getUninterruptibly(Future<T> future) throws ExecutionException {
+      boolean interrupted = false;
+      try {
+         for (;;) {
+            try {
+               return future.get();
+            } catch (InterruptedException e) {
+               interrupted = true;
+            }
+         }
+      } finally {
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+
+   /**
+    * Renders a file into a byte array that is kept for the next file rendered by the same task, so that
+    * the array only grows to the size of the largest file. One per thread at any time.
+    */
+   private static final class RenderBuffer implements WritableByteChannel {
+      private static final int CHUNK_SIZE = 8 * 1024;
+
+      private final PicoChannelRenderer _renderer = new PicoChannelRenderer(CHUNK_SIZE);
+      private final ByteBuffer          _chunk    = ByteBuffer.allocate(CHUNK_SIZE);
+      private byte[]                    _bytes    = new byte[CHUNK_SIZE];
+      private int                       _length;
+
+      RenderBuffer(Charset charset) {
+         _renderer.setCharset(charset);
+      }
+
+      FileResult writeFile(Path path, PicoWriter writer) throws IOException {
+         long start = System.nanoTime();
+         _length = 0;
+         _renderer.render(writer, this);
+         long rendered = System.nanoTime();
+
+         Status status;
+         if (hasContent(path)) {
+            status = Status.UNCHANGED;
+         } else {
+            Path parent = path.getParent();
+            if (parent != null) {
+               Files.createDirectories(parent);
+            }
+            try (OutputStream out = Files.newOutputStream(path)) {
+               out.write(_bytes, 0, _length);
+            }
+            status = Status.WRITTEN;
+         }
+         return new FileResult(path, status, _length, rendered - start, System.nanoTime() - rendered);
+      }
+
+      /**
+       * @return true if the file exists and holds exactly the rendered bytes, read a chunk at a time
+       */
+      private boolean hasContent(Path path) throws IOException {
+         if (!Files.isRegularFile(path) || Files.size(path) != _length) {
+            return false;
+         }
+         int offset = 0;
+         try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            _chunk.clear();
+            int n;
+            while ((n = in.read(_chunk)) > 0) {
+               if (offset + n > _length) {
+                  return false;
+               }
+               byte[] chunk = _chunk.array();
+               for (int i = 0; i < n; i++) {
+                  if (chunk[i] != _bytes[offset + i]) {
+                     return false;
+                  }
+               }
+               offset += n;
+               _chunk.clear();
+            }
+         }
+         return offset == _length;
+      }
+
+      @Override
+      public int write(ByteBuffer src) {
+         int n = src.remaining();
+         if (_length + n > _bytes.length) {
+            long grown = Math.max((long) _bytes.length * 2, (long) _length + n);
+            if (grown > Integer.MAX_VALUE - 8) {
+               if ((long) _length + n > Integer.MAX_VALUE - 8) {
+                  throw new RuntimeException("Rendered file is too large to buffer");
+               }
+               grown = Integer.MAX_VALUE - 8;
+            }
+            _bytes = Arrays.copyOf(_bytes, (int) grown);
+         }
+         src.get(_bytes, _length, n);
+         _length += n;
+         return n;
+      }
+
+      @Override
+      public boolean isOpen() {
+         return true;
+      }
+
+      @Override
+      public void close() {
+      }
+   }
+}
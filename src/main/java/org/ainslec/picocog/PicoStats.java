@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistics about a {@link PicoWriter} tree, as returned by {@link PicoWriter#getStats()}. Lines, characters and
+ * bytes count what would be rendered, so writers that are not generated are left out, and an attached writer is
+ * counted each time it is attached.
+ * @author agent
+ */
+public final class PicoStats {
+   private long _lines                = 0;
+   private long _characters           = 0;
+   private long _bytes                = 0;
+   private int  _maxIndent            = 0;
+   private int  _maxDepth             = 0;
+   private int  _deferredWriterCount  = 0;
+   private int  _attachedWriterCount  = 0;
+   private long _columnRowsFlushed    = 0;
+
+   PicoStats(PicoWriter writer) {
+      walk(writer);
+      final String lineSeparator = writer.getLineSeparator();
+      final long   separatorBytes = utf8Length(lineSeparator);
+      LineSink sink = new LineSink() {
+         @Override
+         public void writeLine(String indentText, int indentLevel, CharSequence line) {
+            _lines++;
+            _characters += (long) indentText.length() * indentLevel + line.length() + lineSeparator.length();
+            _bytes      += utf8Length(indentText) * indentLevel + utf8Length(line) + separatorBytes;
+            if (indentLevel > _maxIndent) {
+               _maxIndent = indentLevel;
+            }
+         }
+         @Override
+         public void writeText(CharSequence text) {
+            _characters += text.length();
+            _bytes      += utf8Length(text);
+         }
+      };
+      try {
+         writer.render(writer.outputContext(sink, lineSeparator, false).quiet(), 0, null, false);
+      } catch (IOException e) {
+         throw new RuntimeException(e); // The counting sink does not throw
+      }
+   }
+
+   private void walk(PicoWriter top) {
+      List<PicoWriter> writers = new ArrayList<>();
+      List<Integer>    depths  = new ArrayList<>();
+      writers.add(top);
+      depths.add(0);
+      while (!writers.isEmpty()) {
+         PicoWriter writer = writers.remove(writers.size() - 1);
+         int        depth  = depths.remove(depths.size() - 1);
+         if (!writer.beginRender()) {
+            continue;
+         }
+         if (depth > _maxDepth) {
+            _maxDepth = depth;
+         }
+         _columnRowsFlushed += writer.getColumnRowsFlushed();
+         for (PicoWriterItem item : writer.getContent()) {
+            if (item instanceof PicoWriter) {
+               _deferredWriterCount++;
+               writers.add((PicoWriter) item);
+               depths.add(depth + 1);
+            } else if (item instanceof AttachedWriter) {
+               _attachedWriterCount++;
+               writers.add(((AttachedWriter) item)._writer);
+               depths.add(depth + 1);
+            }
+         }
+      }
+   }
+
+   static long utf8Length(CharSequence text) {
+      final int length = text.length();
+      long bytes = length;
+      for (int i = 0; i < length; i++) {
+         char c = text.charAt(i);
+         if (c >= 0x80) {
+            if (c < 0x800) {
+               bytes++;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+               bytes += 2; // Four bytes for the pair
+               i++;
+            } else {
+               bytes += 2;
+            }
+         }
+      }
+      return bytes;
+   }
+
+   /**
+    * @return The number of lines that would be rendered
+    */
+   public long getLines() {
+      return _lines;
+   }
+
+   /**
+    * @return The length of the rendered output, in characters
+    */
+   public long getCharacters() {
+      return _characters;
+   }
+
+   /**
+    * @return The length of the rendered output, in bytes, when encoded as UTF-8
+    */
+   public long getBytes() {
+      return _bytes;
+   }
+
+   /**
+    * @return The deepest indentation level of any rendered line
+    */
+   public int getMaxIndent() {
+      return _maxIndent;
+   }
+
+   /**
+    * @return The deepest nesting of deferred (or attached) writers, zero if there are none
+    */
+   public int getMaxDepth() {
+      return _maxDepth;
+   }
+
+   public int getDeferredWriterCount() {
+      return _deferredWriterCount;
+   }
+
+   public int getAttachedWriterCount() {
+      return _attachedWriterCount;
+   }
+
+   /**
+    * @return The number of rows written with {@link PicoWriter#writeln(String...)} that have been aligned and flushed
+    */
+   public long getColumnRowsFlushed() {
+      return _columnRowsFlushed;
+   }
+
+   @Override
+   public String toString() {
+      return "lines=" + _lines + ", characters=" + _characters + ", bytes=" + _bytes + ", maxIndent=" + _maxIndent
+         + ", maxDepth=" + _maxDepth + ", deferredWriters=" + _deferredWriterCount + ", attachedWriters="
+         + _attachedWriterCount + ", columnRowsFlushed=" + _columnRowsFlushed;
+   }
+}
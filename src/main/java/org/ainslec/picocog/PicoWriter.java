@@ -15,8 +15,10 @@
  */
 package org.ainslec.picocog;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 /**
  * A tiny code generation library
@@ -25,17 +27,40 @@ import java.util.List;
 public class PicoWriter implements PicoWriterItem {
    private static final String      SEP                         = "\n";
    private static final String      DI                          = "   " ;
-   private int                      _indents                    = -1;
-   private int                      _numLines                   = 0;
-   private boolean                  _generateIfEmpty            = true;
-   private boolean                  _generate                   = true;
+   int                              _indents                    = -1;
+   int                              _initialIndents             = 0;
+   int                              _numLines                   = 0;
+   boolean                          _generateIfEmpty            = true;
+   boolean                          _generate                   = true;
    boolean                          _normalizeAdjacentBlankRows = false;
    
-   private boolean                  _isDirty                    = false;
-   private List<String[]>           _rows                       = new ArrayList<>(); // Used for aligning columns in the multi string writeln method.
-   private List<PicoWriterItem>     _content                    = new ArrayList <PicoWriterItem>();
-   private StringBuilder            _sb                         = new StringBuilder();
-   private String                   _ic   /* Indent chars*/     = DI;
+   boolean                          _isDirty                    = false;
+   ColumnAligner                    _rows                       = null; // Used for aligning columns in the multi string writeln method.
+   ColumnAlignment[]                _columnAlignments           = null;
+   boolean                          _alignmentGroup             = false;
+   List<PicoWriterItem>             _content                    = new ArrayList <PicoWriterItem>();
+   StringBuilder                    _sb                         = new StringBuilder();
+   String                           _ic   /* Indent chars*/     = DI;
+   String                           _lineSeparator              = SEP;
+   boolean                          _concurrent                 = false;
+   boolean                          _compact                    = false;
+   boolean                          _incremental                = false;
+   private volatile RenderCache     _renderCache                = null; // Volatile, as sealed trees can be rendered by several threads
+   PicoWriter                       _parent                     = null; // The writer that created this deferred writer
+   private List<PicoWriter>         _attachedTo                 = null; // Writers this writer has been attached to (in incremental mode)
+   private PicoRenderListener       _listener                   = null;
+   private PicoLineFilter[]         _lineFilters                = null;
+   private int                      _columnRowsFlushed          = 0;
+   SourceCodeContributor            _lazyContributor            = null; // Fills in a lazy writer when it is first rendered
+   private BooleanSupplier          _lazyIsEmpty                = null;
+   private Boolean                  _lazyEmpty                  = null; // The answer given by _lazyIsEmpty, once asked
+   private PicoWriterPool           _pool                       = null; // The pool deferred writers are taken from, if any
+   private CompactLines             _spareLines                 = null; // Kept by reset() for reuse in compact mode
+   private PicoInterner             _interner                   = null;
+   private boolean                  _sharedContent              = false; // Whether _content is shared with other writers (see PicoInterner)
+   StreamState                      _stream                     = null; // The output of a writer in streaming mode
+   private int                      _linesSinceAdvance          = 0; // Lines added since this writer last advanced the stream
+   volatile boolean                 _sealed                     = false;
 
    public PicoWriter () {
       _indents = 0;
@@ -46,14 +71,17 @@ public class PicoWriter implements PicoWriterItem {
    }
    private PicoWriter (int initialIndent, String indentText) {
       _indents = initialIndent < 0 ? 0 : initialIndent;
+      _initialIndents = _indents;
       _ic = indentText == null ? DI : indentText;
    }
    public void indentRight() {
-      flushRows();
+      beforeChange();
+      flushRowsOutsideGroup();
       _indents++;
    }
    public void indentLeft() {
-      flushRows();
+      beforeChange();
+      flushRowsOutsideGroup();
       _indents--;
       if (_indents < 0) {
          throw new RuntimeException("Local indent cannot be less than zero");
@@ -62,45 +90,136 @@ public class PicoWriter implements PicoWriterItem {
 
    public final PicoWriter createDeferredWriter() {
       
-      if (_sb.length() > 0) {
-         flush();
-         _numLines++;
-      }
+      beforeChange();
+      
+      endPendingLines();
       
-      PicoWriter inner = new PicoWriter(_indents, _ic);
+      PicoWriter inner = _pool == null ? null : _pool.take();
+      if (inner == null) {
+         inner = new PicoWriter(_indents, _ic);
+      } else {
+         inner._indents        = _indents;
+         inner._initialIndents = _indents;
+         inner._ic             = _ic;
+      }
+      inner._pool        = _pool;
+      inner._interner    = _interner;
+      inner._stream      = _stream;
+      inner._concurrent  = _concurrent;
+      inner._compact     = _compact;
+      inner._incremental = _incremental;
+      inner._listener    = _listener;
+      inner._parent      = this;
       _content.add(inner);
       _numLines++;
       
       return inner;
    }
    
+   /**
+    * Attaches a pre-built writer at the current line and indentation level. The attached writer is not copied or
+    * modified, so this takes constant time, and the same writer may be attached more than once. Its lines are
+    * indented relative to the current indentation level (using this writer's indent text) when rendered.
+    * @param inner The writer to attach
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
    public final PicoWriter writeln(PicoWriter inner) {
       
-      if (_sb.length() > 0) {
-         flush();
+      beforeChange();
+      
+      endPendingLines();
+      
+      if (inner != null) {
+         if (_incremental) {
+            inner.setIncrementalRender(true);
+            inner.addAttachedTo(this);
+         }
+         _content.add(new AttachedWriter(inner, _indents));
          _numLines++;
       }
       
-      adjustIndents(inner, this._indents, this._ic);
+      return this;
+   }
+   
+   /**
+    * Inserts a shared fragment at the current line and indentation level. The fragment is not copied.
+    * @param fragment The fragment to insert
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public final PicoWriter writeln(PicoFragment fragment) {
       
-      _content.add(inner);
-      _numLines++;
+      beforeChange();
+      
+      endPendingLines();
+      
+      if (fragment != null) {
+         _content.add(new AttachedFragment(fragment, _indents));
+         _numLines += fragment.getLineCount();
+      }
       
       return this;
    }
    
-   private void adjustIndents(PicoWriter inner, int indents, String ic) {
-      if (inner != null) {
-         for ( PicoWriterItem item : inner._content) {
-            if (item instanceof PicoWriter) {
-               adjustIndents((PicoWriter) item, indents, ic);
-            } else if (item instanceof IndentedLine) {
-               IndentedLine il = (IndentedLine) item;
-               il._indent = il._indent + indents;
-            }
-         }
-         inner._ic = ic;
+   /**
+    * Creates a deferred writer at the current line and indentation level, whose content is written by the
+    * contributor only when the writer is first rendered (or sealed). If the writer is never generated (see
+    * {@link #setGenerate(boolean)}), the contributor is never run. The content is kept, so later renders do not run
+    * the contributor again.
+    * @param contributor Writes the content of the deferred writer
+    * @return The deferred writer
+    */
+   public final PicoWriter createLazyWriter(SourceCodeContributor contributor) {
+      return createLazyWriter(contributor, null);
+   }
+   
+   /**
+    * As per {@link #createLazyWriter(SourceCodeContributor)}, with a cheap test of whether the contributor would
+    * write anything. If the writer is not generated when empty (see {@link #setGenerateIfEmpty(boolean)}) and
+    * the test says it would be empty, the contributor is never run.
+    * @param contributor Writes the content of the deferred writer
+    * @param isEmpty Returns true if the contributor would write nothing, asked at most once
+    * @return The deferred writer
+    */
+   public final PicoWriter createLazyWriter(SourceCodeContributor contributor, BooleanSupplier isEmpty) {
+      if (contributor == null) {
+         throw new RuntimeException("Contributor cannot be null");
       }
+      PicoWriter inner = createDeferredWriter();
+      inner._lazyContributor = contributor;
+      inner._lazyIsEmpty     = isEmpty;
+      return inner;
+   }
+   
+   /**
+    * Writes a block of multi-line text, such as a template or a comment, at the current indentation level. The text
+    * is kept as it is, rather than being split into lines, so must not be changed afterwards.
+    * @param text The text, with lines separated by "\n", "\r\n" or "\r" (a line break at the very end is optional)
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public final PicoWriter writeBlock(CharSequence text) {
+      return writeBlock(text, false);
+   }
+   
+   /**
+    * As per {@link #writeBlock(CharSequence)}, optionally removing the leading whitespace that every line of the block
+    * starts with, so that text indented for somewhere else takes on the indentation of this writer.
+    * @param text The text, with lines separated by "\n", "\r\n" or "\r" (a line break at the very end is optional)
+    * @param stripCommonIndent true to remove the leading spaces and tabs shared by every line that is not blank
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public final PicoWriter writeBlock(CharSequence text, boolean stripCommonIndent) {
+      
+      beforeChange();
+      
+      endPendingLines();
+      
+      if (text != null) {
+         TextBlock block = new TextBlock(text, _indents, stripCommonIndent);
+         _content.add(block);
+         _numLines += block.getLineCount();
+      }
+      
+      return this;
    }
    
    public PicoWriter writeln_r(String string) {
@@ -110,14 +229,14 @@ public class PicoWriter implements PicoWriterItem {
    }
    
    public PicoWriter writeln_l(String string) {
-      flushRows();
+      flushRowsOutsideGroup();
       indentLeft();
       writeln(string);
       return this;
    }
    
    public PicoWriter writeln_lr(String string) {
-      flushRows();
+      flushRowsOutsideGroup();
       indentLeft();
       writeln(string);
       indentRight();
@@ -125,6 +244,7 @@ public class PicoWriter implements PicoWriterItem {
    }
    
    public PicoWriter writeln(String string) {
+      beforeChange();
       _numLines++;
       _sb.append(string);
       flush();
@@ -137,7 +257,11 @@ public class PicoWriter implements PicoWriterItem {
     * @return Returns the current instance of the {@link PicoWriter} object
     */
    public PicoWriter writeln(String ... strings) {
-      _rows.add(strings);
+      beforeChange();
+      if (_rows == null) {
+         _rows = new ColumnAligner();
+      }
+      _rows.addRow(strings, _indents);
       _isDirty = true;
       _numLines++;
       return this;
@@ -166,64 +290,418 @@ public class PicoWriter implements PicoWriterItem {
    }
    
    public void write(String string)  {
+      beforeChange();
       _numLines++;
       _isDirty = true;
       _sb.append(string);
    }
    
-   private static final void writeIndentedLine(final StringBuilder sb, final int indentBase, final String indentText, final String line) {
-      for (int indentIndex = 0; indentIndex < indentBase; indentIndex++) {
-         sb.append(indentText);
+   /**
+    * Appends text to the current line, without ending it. The text is copied straight into the line being built,
+    * so no intermediate {@link String} is created. End the line with {@link #endln()}.
+    * <pre>
+    * w.append("private ").append(type).append(' ').append(name).append(" = ").append(value).append(';').endln();
+    * </pre>
+    * In compact storage mode (see {@link #setCompactStorage(boolean)}), the finished line is also copied straight
+    * into shared arrays, so building a line this way allocates nothing at all.
+    * @param text The text to append, "null" if null
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public PicoWriter append(CharSequence text) {
+      beforeChange();
+      _isDirty = true;
+      _sb.append(text);
+      return this;
+   }
+   
+   /**
+    * Appends part of a {@link CharSequence} to the current line, see {@link #append(CharSequence)}.
+    * @param text The text to take the characters from
+    * @param start The index of the first character to append
+    * @param end The index just past the last character to append
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public PicoWriter append(CharSequence text, int start, int end) {
+      beforeChange();
+      _isDirty = true;
+      _sb.append(text, start, end);
+      return this;
+   }
+   
+   /**
+    * Appends a range of characters to the current line, see {@link #append(CharSequence)}.
+    * @param chars The array to take the characters from
+    * @param offset The index of the first character to append
+    * @param length The number of characters to append
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public PicoWriter append(char[] chars, int offset, int length) {
+      beforeChange();
+      _isDirty = true;
+      _sb.append(chars, offset, length);
+      return this;
+   }
+   
+   /**
+    * Appends a single character to the current line, see {@link #append(CharSequence)}.
+    * @param c The character to append
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public PicoWriter append(char c) {
+      beforeChange();
+      _isDirty = true;
+      _sb.append(c);
+      return this;
+   }
+   
+   /**
+    * Appends the decimal form of a number to the current line, without creating a {@link String} for it.
+    * @param value The number to append
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public PicoWriter append(int value) {
+      beforeChange();
+      _isDirty = true;
+      _sb.append(value);
+      return this;
+   }
+   
+   /**
+    * Appends the decimal form of a number to the current line, as per {@link #append(int)}.
+    * @param value The number to append
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public PicoWriter append(long value) {
+      beforeChange();
+      _isDirty = true;
+      _sb.append(value);
+      return this;
+   }
+   
+   /**
+    * Ends the line built by the append methods (an empty line if nothing has been appended).
+    * @return Returns the current instance of the {@link PicoWriter} object
+    */
+   public PicoWriter endln() {
+      beforeChange();
+      _numLines++;
+      flush();
+      return this;
+   }
+   
+   /**
+    * Renders this writer and every writer beneath it. The tree is walked with an explicit stack rather than by
+    * recursion, so the depth of nesting is limited only by the heap.
+    * @param indentText If not null, overrides the indent text of this writer and every writer beneath it
+    * @return true if the last row written (or suppressed) was blank
+    */
+   boolean render(RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) throws IOException {
+      RenderWalk walk = new RenderWalk(lastRowWasBlank);
+      walk.enter(this, ctx, indentBase, indentText);
+      walk.run();
+      return walk._lastRowWasBlank;
+   }
+   
+   /**
+    * One writer being rendered by a {@link RenderWalk}.
+    */
+   private static final class RenderFrame {
+      PicoWriter    _writer;
+      RenderContext _ctx;
+      int           _indentBase;
+      String        _indentText;
+      int           _index;       // The next item of the writer's content to render
+      RenderCache   _cache;       // The kept output being built, in incremental mode
+      LineSink      _outerSink;   // Where the kept output is replayed to once built
+      boolean       _listening;   // Whether the render listener is being told about this render
+      Object        _token;       // From the render listener
+   }
+   
+   /**
+    * Renders a tree of writers, depth first, keeping the writers that are part way through on an explicit stack.
+    * Frames are reused as the walk goes deeper and comes back up, so the walk allocates one frame per level of
+    * nesting rather than one per writer.
+    */
+   private static final class RenderWalk {
+      private final List<RenderFrame> _frames = new ArrayList<>();
+      private int                     _depth  = 0;
+      boolean                         _lastRowWasBlank;
+      
+      RenderWalk(boolean lastRowWasBlank) {
+         _lastRowWasBlank = lastRowWasBlank;
+      }
+      
+      /**
+       * Starts rendering a writer. Writers that are not generated are skipped, and kept output that is still
+       * current (in incremental mode) is replayed straight away, otherwise the writer is pushed onto the stack.
+       */
+      void enter(PicoWriter writer, RenderContext ctx, int indentBase, String indentText) throws IOException {
+         if (!writer.beginRender()) {
+            return;
+         }
+         
+         boolean listening = writer._listener != null && ctx._notifyListeners;
+         Object  token     = listening ? writer._listener.renderStarted(writer) : null;
+         
+         RenderContext frameCtx = ctx;
+         RenderCache   cache    = null;
+         if (writer._incremental && ctx._useRenderCache) {
+            RenderCache kept = writer._renderCache;
+            if (kept != null && kept.matches(ctx, indentBase, indentText, _lastRowWasBlank)) {
+               try {
+                  kept.replay(ctx._sink);
+               } finally {
+                  if (listening) {
+                     writer._listener.renderFinished(writer, token);
+                  }
+               }
+               _lastRowWasBlank = kept._lastRowWasBlankAfter;
+               return;
+            }
+            cache    = new RenderCache(ctx, indentBase, indentText, _lastRowWasBlank);
+            frameCtx = ctx.withSink(cache);
+         }
+         
+         if (_depth == _frames.size()) {
+            _frames.add(new RenderFrame());
+         }
+         RenderFrame frame = _frames.get(_depth++);
+         frame._writer     = writer;
+         frame._ctx        = frameCtx;
+         frame._indentBase = indentBase;
+         frame._indentText = indentText;
+         frame._index      = 0;
+         frame._cache      = cache;
+         frame._outerSink  = ctx._sink;
+         frame._listening  = listening;
+         frame._token      = token;
+         if (ctx._index != null) {
+            ctx._index.enterNode(writer);
+         }
+      }
+      
+      void run() throws IOException {
+         boolean finished = false;
+         try {
+            while (_depth > 0) {
+               RenderFrame frame  = _frames.get(_depth - 1);
+               PicoWriter  writer = frame._writer;
+               if (frame._index < writer._content.size()) {
+                  if (frame._ctx._index != null) {
+                     frame._ctx._index.setItem(frame._index);
+                  }
+                  PicoWriterItem item = writer._content.get(frame._index++);
+                  if (item instanceof PicoWriter) {
+                     enter((PicoWriter) item, frame._ctx, frame._indentBase, frame._indentText);
+                  } else if (item instanceof AttachedWriter) {
+                     AttachedWriter aw = (AttachedWriter) item;
+                     enter(aw._writer, frame._ctx, frame._indentBase + aw._indentOffset, frame._indentText == null ? writer._ic : frame._indentText);
+                  } else {
+                     _lastRowWasBlank = writer.renderItem(item, frame._ctx, frame._indentBase, frame._indentText, _lastRowWasBlank);
+                  }
+               } else {
+                  _depth--;
+                  leave(frame);
+               }
+            }
+            finished = true;
+         } finally {
+            if (!finished) {
+               // Tell listeners about the renders that were cut short
+               while (_depth > 0) {
+                  RenderFrame frame = _frames.get(--_depth);
+                  if (frame._listening) {
+                     frame._writer._listener.renderFinished(frame._writer, frame._token);
+                  }
+               }
+            }
+         }
+      }
+      
+      /**
+       * Finishes rendering a writer, once all of its content has been rendered.
+       */
+      private void leave(RenderFrame frame) throws IOException {
+         PicoWriter  writer    = frame._writer;
+         RenderCache cache     = frame._cache;
+         boolean     listening = frame._listening;
+         Object      token     = frame._token;
+         if (frame._ctx._index != null) {
+            frame._ctx._index.leaveNode();
+         }
+         try {
+            if (cache != null) {
+               cache._lastRowWasBlankAfter = _lastRowWasBlank;
+               cache.finish();
+               writer._renderCache = cache;
+               cache.replay(frame._outerSink);
+            }
+         } finally {
+            frame._writer    = null;
+            frame._ctx       = null;
+            frame._cache     = null;
+            frame._outerSink = null;
+            frame._token     = null;
+            if (listening) {
+               writer._listener.renderFinished(writer, token);
+            }
+         }
       }
-      sb.append(line);
-      sb.append(SEP);
    }
    
-   private boolean render(StringBuilder sb, int indentBase, boolean normalizeAdjacentBlankRows, boolean lastRowWasBlank) {
+   /**
+    * Flushes any pending text, then checks the generation flags.
+    * @return false if this writer (and everything beneath it) should be left out of the output
+    */
+   boolean beginRender() {
+      if (_concurrent && !_sealed) {
+         throw new RuntimeException("A concurrent writer must be sealed before it is rendered");
+      }
+      
+      if (_lazyContributor != null && !fillLazy()) {
+         return false;
+      }
       
       if (_isDirty) {
          flush();
       }
       
       // Some methods are flagged not to be generated if there is no body text inside the method, we don't add these to the class narrative
-      if ((!isGenerate()) || ((!isGenerateIfEmpty()) && isMethodBodyEmpty())) {
-         return lastRowWasBlank;
-      }
-       // TODO :: Will make this configurable
-      for (PicoWriterItem item : _content) {
-         if (item instanceof IndentedLine) {
-            IndentedLine il           = (IndentedLine)item;
-            final String lineText     = il.getLine();
-            final int indentLevelHere = indentBase + il.getIndent();
-            boolean thisRowIsBlank    = lineText.length() == 0;
-
-            if (normalizeAdjacentBlankRows && lastRowWasBlank && thisRowIsBlank) {
-               // Don't write the line if we already had a blank line
-            } else {
-               writeIndentedLine(sb, indentLevelHere, _ic, lineText);
-            }
-            
-            lastRowWasBlank = thisRowIsBlank;
-         } else if (item instanceof PicoWriter) {
-            lastRowWasBlank = ((PicoWriter)item).render(sb, indentBase, normalizeAdjacentBlankRows, lastRowWasBlank);
+      return isGenerate() && (isGenerateIfEmpty() || !isMethodBodyEmpty());
+   }
+   
+   List<PicoWriterItem> getContent() {
+      return _content;
+   }
+   
+   String getIndentText() {
+      return _ic;
+   }
+   
+   void setIndentText(String indentText) {
+      _ic = indentText == null ? DI : indentText;
+   }
+   
+   /**
+    * Renders one item of this writer's content.
+    * @return true if the last row written (or suppressed) was blank
+    */
+   boolean renderItem(PicoWriterItem item, RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) throws IOException {
+      if (item instanceof IndentedLine) {
+         IndentedLine il           = (IndentedLine)item;
+         final String lineText     = il.getLine();
+         final int indentLevelHere = indentBase + il.getIndent();
+         boolean thisRowIsBlank    = lineText.length() == 0;
+         
+         if (ctx._normalizeAdjacentBlankRows && lastRowWasBlank && thisRowIsBlank) {
+            // Don't write the line if we already had a blank line
          } else {
-            String string = item.toString();
-            sb.append(string);
+            ctx._sink.writeLine(indentText == null ? _ic : indentText, indentLevelHere, lineText);
          }
+         
+         return thisRowIsBlank;
+      } else if (item instanceof PicoWriter) {
+         return ((PicoWriter)item).render(ctx, indentBase, indentText, lastRowWasBlank);
+      } else if (item instanceof CompactLines) {
+         return ((CompactLines)item).render(ctx, indentBase, indentText == null ? _ic : indentText, lastRowWasBlank);
+      } else if (item instanceof AttachedWriter) {
+         AttachedWriter aw = (AttachedWriter)item;
+         return aw._writer.render(ctx, indentBase + aw._indentOffset, indentText == null ? _ic : indentText, lastRowWasBlank);
+      } else if (item instanceof TextBlock) {
+         return ((TextBlock)item).render(ctx, indentBase, indentText == null ? _ic : indentText, lastRowWasBlank);
+      } else if (item instanceof AttachedFragment) {
+         AttachedFragment af = (AttachedFragment)item;
+         return af._fragment.render(ctx, indentBase + af._indentOffset, indentText == null ? _ic : indentText, lastRowWasBlank);
+      } else {
+         String string = item.toString();
+         ctx._sink.writeText(string);
+         return lastRowWasBlank;
       }
-      
-      return lastRowWasBlank;
    }
 
    public boolean isMethodBodyEmpty() {
+      if (_lazyContributor != null) {
+         if (isLazyEmpty()) {
+            return true;
+         }
+         runLazy();
+      }
       return _content.size() == 0 && _sb.length() == 0;
    }
    
+   /**
+    * Runs the contributor of a lazy writer, unless the writer is going to be left out of the output.
+    * @return false if the writer is going to be left out of the output
+    */
+   boolean fillLazy() {
+      if (!_generate || (!_generateIfEmpty && isLazyEmpty())) {
+         return false;
+      }
+      runLazy();
+      return true;
+   }
+   
+   /**
+    * Runs the contributor of a lazy writer. If the contributor fails, whatever it wrote is discarded and the writer is
+    * left lazy, so the next render runs the contributor again rather than rendering part of its output.
+    */
+   private void runLazy() {
+      final SourceCodeContributor contributor  = _lazyContributor;
+      final BooleanSupplier       isEmpty      = _lazyIsEmpty;
+      final int                   contentSize  = _content.size();
+      final PicoWriterItem        lastItem     = contentSize == 0 ? null : _content.get(contentSize - 1);
+      final int                   runLines     = lastItem instanceof CompactLines ? ((CompactLines) lastItem).getLineCount() : 0;
+      final int                   textLength   = _sb.length();
+      final int                   rowCount     = _rows == null ? 0 : _rows.getRowCount();
+      final int                   indents      = _indents;
+      final int                   numLines     = _numLines;
+      final boolean               isDirty      = _isDirty;
+      final boolean               group        = _alignmentGroup;
+      _lazyContributor = null;
+      _lazyIsEmpty     = null;
+      boolean contributed = false;
+      try {
+         contributor.contribute(this);
+         contributed = true;
+      } finally {
+         if (!contributed) {
+            _content.subList(contentSize, _content.size()).clear();
+            if (lastItem instanceof CompactLines) {
+               ((CompactLines) lastItem).truncate(runLines); // Lines may have been added to the run it ended with
+            }
+            _sb.setLength(textLength);
+            if (_rows != null) {
+               _rows.truncate(rowCount);
+            }
+            _indents         = indents;
+            _numLines        = numLines;
+            _isDirty         = isDirty;
+            _alignmentGroup  = group;
+            _lazyContributor = contributor;
+            _lazyIsEmpty     = isEmpty;
+         }
+      }
+   }
+   
+   /**
+    * @return true if a lazy writer has no content of its own, and its contributor is known to write nothing
+    */
+   private boolean isLazyEmpty() {
+      if (_lazyIsEmpty == null || _content.size() != 0 || _sb.length() != 0) {
+         return false;
+      }
+      if (_lazyEmpty == null) {
+         _lazyEmpty = _lazyIsEmpty.getAsBoolean();
+      }
+      return _lazyEmpty;
+   }
+   
    public boolean isGenerateIfEmpty() {
       return _generateIfEmpty;
    }
    
    public void setGenerateIfEmpty(boolean generateIfEmpty) {
+      beforeChange();
       _generateIfEmpty  = generateIfEmpty;
    }
    
@@ -232,65 +710,688 @@ public class PicoWriter implements PicoWriterItem {
    }
    
    public void setGenerate(boolean generate) {
+      beforeChange();
       _generate = generate;
    }
    
-   private void flush() {
-      flushRows();
-      _content.add(new IndentedLine(_sb.toString(), _indents));
-      _sb.setLength(0);
-      _isDirty = false;
+   /**
+    * Puts this writer into (or out of) concurrent mode. Deferred writers created afterwards inherit the mode.
+    * <p>
+    * In concurrent mode, deferred writers may be handed to other threads and filled in while this writer (and
+    * its other deferred writers) are still being written to, so long as each writer is only ever written to by
+    * one thread at a time. No locks are taken while writing. Before rendering, every writer in the tree must
+    * be sealed, see {@link #seal()}.
+    * @param concurrent true to require sealing before render
+    */
+   public void setConcurrent(boolean concurrent) {
+      if (concurrent && _stream != null) {
+         throw new RuntimeException("A streaming writer cannot be put into concurrent mode");
+      }
+      _concurrent = concurrent;
    }
    
-   private void flushRows() {
-      if (_rows.size() > 0) {
-         ArrayList<Integer> maxWidth = new ArrayList<>();
-         for (String[] columns : _rows) {
-            int numColumns = columns.length;
-            for (int i=0; i < numColumns; i++) {
-               String currentColumnStringValue = columns[i];
-               int currentColumnStringValueLength = currentColumnStringValue == null ? 0 : currentColumnStringValue.length();
-               if (maxWidth.size() < i+1) {
-                  maxWidth.add(currentColumnStringValueLength);
+   public boolean isConcurrent() {
+      return _concurrent;
+   }
+   
+   /**
+    * Marks this writer, and all deferred writers beneath it, as complete. Any further attempt to add content to a
+    * sealed writer will throw an exception. A sealed tree can be rendered from any number of threads at once, so
+    * long as it has no line filters that keep state between lines (see {@link #addLineFilter(PicoLineFilter)}).
+    * In incremental mode, each thread may keep the output it rendered, but only ever replaces kept output with
+    * the same text.
+    * <p>
+    * When deferred writers have been filled in by other threads, each of those threads should seal its own
+    * writer once it has finished with it. Sealing the top level writer afterwards (from the thread that will
+    * render it) then guarantees that all of their content is visible to the rendering thread.
+    */
+   public void seal() {
+      List<PicoWriter> completed = new ArrayList<>();
+      List<PicoWriter> pending   = new ArrayList<>();
+      pending.add(this);
+      while (!pending.isEmpty()) {
+         PicoWriter writer = pending.remove(pending.size() - 1);
+         if (writer._sealed) {
+            continue;
+         }
+         if (writer._lazyContributor != null) {
+            writer.fillLazy();
+         }
+         if (writer._isDirty) {
+            writer.flush();
+         }
+         for (PicoWriterItem item : writer._content) {
+            if (item instanceof PicoWriter) {
+               pending.add((PicoWriter) item);
+            } else if (item instanceof AttachedWriter) {
+               pending.add(((AttachedWriter) item)._writer);
+            } else if (item instanceof CompactLines) {
+               ((CompactLines) item).trim();
+            }
+         }
+         completed.add(writer);
+      }
+      // Writers beneath are sealed before the writers above them, so this writer is sealed last
+      for (int i = completed.size() - 1; i >= 0; i--) {
+         PicoWriter writer = completed.get(i);
+         if (writer._interner != null && writer._parent != null && writer._stream == null) {
+            writer._content       = writer._interner.subtree(writer);
+            writer._sharedContent = true;
+         }
+         writer._sealed = true;
+      }
+   }
+   
+   public boolean isSealed() {
+      return _sealed;
+   }
+   
+   /**
+    * Switches this (top level) writer to streaming mode. From now on, content is written to the output, and freed,
+    * as soon as it can no longer change: everything before the earliest deferred writer that is still open. A
+    * deferred writer stays open until it is closed (see {@link #close()}), so memory use depends on the size of the
+    * open regions of the tree rather than the size of the output.
+    * <p>
+    * Streamed content is no longer held by the tree, so later calls to {@link #toString()} (and similar) only
+    * render what has not yet been streamed. Finish with {@link #finishStreaming()}. Changing the generation flags
+    * of a writer after some of its content has been streamed does not affect what has already been written.
+    * Streaming cannot be combined with incremental rendering, or with concurrent mode: a streaming tree must only
+    * be written to from one thread.
+    * @param out The destination
+    */
+   public void startStreaming(Appendable out) {
+      if (_parent != null) {
+         throw new RuntimeException("Only a top level writer can stream its output");
+      }
+      if (_incremental) {
+         throw new RuntimeException("Streaming cannot be combined with incremental rendering");
+      }
+      List<PicoWriter> tree    = new ArrayList<>();
+      List<PicoWriter> pending = new ArrayList<>();
+      pending.add(this);
+      while (!pending.isEmpty()) {
+         PicoWriter writer = pending.remove(pending.size() - 1);
+         if (writer._concurrent) {
+            throw new RuntimeException("Streaming cannot be combined with concurrent mode");
+         }
+         tree.add(writer);
+         for (PicoWriterItem item : writer._content) {
+            if (item instanceof PicoWriter) {
+               pending.add((PicoWriter) item);
+            }
+         }
+      }
+      StreamState stream = new StreamState(this, outputContext(new AppendableSink(out, _lineSeparator), _lineSeparator, true));
+      for (PicoWriter writer : tree) {
+         writer._stream = stream;
+      }
+      stream.advance();
+   }
+   
+   public boolean isStreaming() {
+      return _stream != null;
+   }
+   
+   /**
+    * Marks this writer, and all deferred writers beneath it, as complete (see {@link #seal()}). In streaming mode,
+    * this writes out whatever can now be written.
+    */
+   public void close() {
+      seal();
+      if (_stream != null) {
+         _stream.advance();
+      }
+   }
+   
+   /**
+    * Closes every writer in the tree, and writes out everything that has not yet been streamed.
+    */
+   public void finishStreaming() {
+      if (_stream == null) {
+         throw new RuntimeException("Writer is not streaming");
+      }
+      StreamState stream = _stream;
+      seal();
+      stream.advance();
+      _stream = null;
+   }
+   
+   /**
+    * Writes out and removes this writer's content up to its first open deferred writer, along with the content of
+    * that writer up to its own first open deferred writer, and so on.
+    * @return true if nothing open remains
+    */
+   boolean streamPrefix(StreamState stream) throws IOException {
+      PicoWriter writer   = this;
+      boolean    complete = true;
+      while (writer != null) {
+         final List<PicoWriterItem> content = writer._content;
+         PicoWriter next     = null;
+         int        streamed = 0;
+         for (; streamed < content.size(); streamed++) {
+            PicoWriterItem item = content.get(streamed);
+            PicoWriter     open = null;
+            if (item instanceof PicoWriter) {
+               open = (PicoWriter) item;
+            } else if (item instanceof AttachedWriter) {
+               open = ((AttachedWriter) item)._writer;
+            }
+            if (open != null && !open._sealed) {
+               // Only stream the start of a deferred writer when it will be generated
+               if (item == open && open._lazyContributor == null && open._generate && (open._generateIfEmpty || !open._content.isEmpty())) {
+                  next = open;
+               }
+               complete = false;
+               break;
+            }
+            stream._lastRowWasBlank = writer.renderItem(item, stream._ctx, 0, null, stream._lastRowWasBlank);
+         }
+         if (streamed > 0) {
+            content.subList(0, streamed).clear();
+         }
+         writer = next;
+      }
+      return complete;
+   }
+   
+   /**
+    * Switches incremental rendering on or off, for this writer and every writer beneath it. Deferred writers
+    * created (and writers attached) afterwards inherit the setting.
+    * <p>
+    * In incremental mode, each writer keeps its rendered output. Any change to a writer discards the output of that
+    * writer and of the writers above it, so rendering again only re-renders the writers that have changed, and
+    * links in the kept output of the rest. This suits trees that are rendered, added to, and rendered again.
+    * @param incrementalRender true to keep rendered output between renders
+    */
+   public void setIncrementalRender(boolean incrementalRender) {
+      List<PicoWriter> pending = new ArrayList<>();
+      pending.add(this);
+      while (!pending.isEmpty()) {
+         PicoWriter writer = pending.remove(pending.size() - 1);
+         if (writer._incremental == incrementalRender) {
+            continue;
+         }
+         writer._incremental = incrementalRender;
+         writer._renderCache = null;
+         for (PicoWriterItem item : writer._content) {
+            if (item instanceof PicoWriter) {
+               pending.add((PicoWriter) item);
+            } else if (item instanceof AttachedWriter) {
+               PicoWriter attached = ((AttachedWriter) item)._writer;
+               pending.add(attached);
+               if (incrementalRender) {
+                  attached.addAttachedTo(writer);
                } else {
-                  if (maxWidth.get(i) < currentColumnStringValueLength) {
-                     maxWidth.set(i, currentColumnStringValueLength);
-                  }
+                  attached._attachedTo = null;
                }
             }
          }
-         
-         StringBuilder rowSB = new StringBuilder();
-         
-         for (String[] columns : _rows) {
-            int numColumns = columns.length;
-            for (int i=0; i < numColumns; i++) {
-               String currentColumnStringValue = columns[i];
-               int currentItemWidth = currentColumnStringValue == null ? 0 : currentColumnStringValue.length();
-               int maxWidth1 = maxWidth.get(i);
-               rowSB.append(currentColumnStringValue == null ? "" : currentColumnStringValue);
-               
-               if (currentItemWidth < maxWidth1) {
-                  for (int j=currentItemWidth; j < maxWidth1; j++) {
-                     rowSB.append(" "); // right pad
+      }
+   }
+   
+   public boolean isIncrementalRender() {
+      return _incremental;
+   }
+   
+   /**
+    * Sets a listener to be told when this writer, and every writer beneath it, is rendered and when column rows
+    * are flushed. Deferred writers created afterwards inherit the listener. There is no listener by default, in
+    * which case the only cost is a null check.
+    * <p>
+    * Calls to {@link #measure()}, and the measuring pass of {@link #toString()}, are not reported.
+    * @param listener The listener, or null for none
+    */
+   public void setRenderListener(PicoRenderListener listener) {
+      List<PicoWriter> pending = new ArrayList<>();
+      pending.add(this);
+      while (!pending.isEmpty()) {
+         PicoWriter writer = pending.remove(pending.size() - 1);
+         if (writer._listener == listener) {
+            continue;
+         }
+         writer._listener = listener;
+         for (PicoWriterItem item : writer._content) {
+            if (item instanceof PicoWriter) {
+               pending.add((PicoWriter) item);
+            } else if (item instanceof AttachedWriter) {
+               pending.add(((AttachedWriter) item)._writer);
+            }
+         }
+      }
+   }
+   
+   public PicoRenderListener getRenderListener() {
+      return _listener;
+   }
+   
+   /**
+    * Collects statistics about this writer and everything beneath it. This renders the tree (without producing any
+    * output), so takes about as long as {@link #measure()}.
+    * @return The statistics
+    */
+   public PicoStats getStats() {
+      return new PicoStats(this);
+   }
+   
+   int getColumnRowsFlushed() {
+      return _columnRowsFlushed;
+   }
+   
+   /**
+    * Clears this writer so that it can be written again from the start, keeping the capacity of its buffers. The
+    * indent text, line separator, column alignments, listener and modes are kept, the generation flags go back to
+    * their defaults, and a sealed writer is no longer sealed. Deferred writers beneath this writer are dropped,
+    * or returned to the pool if this writer came from a {@link PicoWriterPool}, so must not be used again.
+    */
+   public void reset() {
+      if (_incremental) {
+         invalidateParents(this);
+      }
+      if (_pool != null && !_sharedContent) {
+         for (PicoWriterItem item : _content) {
+            if (item instanceof PicoWriter) {
+               _pool.release((PicoWriter) item);
+            }
+         }
+      }
+      clear();
+   }
+   
+   /**
+    * Clears the content and state of this writer, keeping its settings and buffers.
+    */
+   private void clear() {
+      if (_spareLines == null) {
+         for (PicoWriterItem item : _content) {
+            if (item instanceof CompactLines) {
+               _spareLines = (CompactLines) item;
+               _spareLines.clear();
+               break;
+            }
+         }
+      }
+      if (_sharedContent) {
+         _content       = new ArrayList<PicoWriterItem>();
+         _sharedContent = false;
+      } else {
+         _content.clear();
+      }
+      _sb.setLength(0);
+      if (_rows != null) {
+         _rows.clear();
+      }
+      _indents           = _initialIndents;
+      _numLines          = 0;
+      _isDirty           = false;
+      _alignmentGroup    = false;
+      _generate          = true;
+      _generateIfEmpty   = true;
+      _renderCache       = null;
+      _lazyContributor   = null;
+      _lazyIsEmpty       = null;
+      _lazyEmpty         = null;
+      _columnRowsFlushed = 0;
+      _linesSinceAdvance = 0;
+      _sealed            = false;
+   }
+   
+   /**
+    * Clears this writer and puts every setting back to its default, ready to be handed out by a pool.
+    */
+   void recycle(PicoWriterPool pool) {
+      clear();
+      _indents                    = 0;
+      _initialIndents             = 0;
+      _ic                         = DI;
+      _lineSeparator              = SEP;
+      _normalizeAdjacentBlankRows = false;
+      _columnAlignments           = null;
+      _concurrent                 = false;
+      _compact                    = false;
+      _incremental                = false;
+      _listener                   = null;
+      _lineFilters                = null;
+      _parent                     = null;
+      _attachedTo                 = null;
+      _stream                     = null;
+      _interner                   = null;
+      _pool                       = pool;
+   }
+   
+   void addAttachedTo(PicoWriter parent) {
+      if (_attachedTo == null) {
+         _attachedTo = new ArrayList<>(2);
+      }
+      if (!_attachedTo.contains(parent)) {
+         _attachedTo.add(parent);
+      }
+   }
+   
+   /**
+    * Called before any change to this writer.
+    */
+   private void beforeChange() {
+      if (_sealed) {
+         throw new RuntimeException("Writer has been sealed, no further content can be added");
+      }
+      if (_incremental) {
+         _renderCache = null;
+         invalidateParents(this);
+      }
+   }
+   
+   /**
+    * Discards the kept output of every writer above this one. Stops at any writer whose output has already been
+    * discarded, as the output of the writers above that one will have been discarded at the same time.
+    */
+   private static void invalidateParents(PicoWriter writer) {
+      List<PicoWriter> pending = null; // Writers reached through attachment, still to be followed up the tree
+      for (;;) {
+         if (writer._attachedTo != null) {
+            for (PicoWriter parent : writer._attachedTo) {
+               if (parent._renderCache != null || !parent._incremental) {
+                  parent._renderCache = null;
+                  if (pending == null) {
+                     pending = new ArrayList<>();
                   }
+                  pending.add(parent);
                }
             }
-            _content.add(new IndentedLine(rowSB.toString(), _indents));
-            rowSB.setLength(0);
          }
-         _rows.clear();
+         PicoWriter parent = writer._parent;
+         if (parent == null || (parent._incremental && parent._renderCache == null)) {
+            if (pending == null || pending.isEmpty()) {
+               return;
+            }
+            writer = pending.remove(pending.size() - 1);
+         } else {
+            parent._renderCache = null;
+            writer = parent;
+         }
       }
    }
    
-
+   /**
+    * Switches compact line storage on or off. Deferred writers created afterwards inherit the setting.
+    * <p>
+    * By default each line is stored as its own {@link String} in an {@link IndentedLine}. In compact mode, runs
+    * of lines are instead packed into shared arrays (text, line boundaries and indents), which takes close to
+    * one byte per character of text plus a few bytes per line. The rendered output is the same in both modes.
+    * @param compactStorage true to pack lines into shared arrays
+    */
+   public void setCompactStorage(boolean compactStorage) {
+      _compact = compactStorage;
+   }
+   
+   public boolean isCompactStorage() {
+      return _compact;
+   }
+   
+   /**
+    * Stores each distinct line once, and (when sealed) each distinct deferred writer's content once, using the given
+    * interner. Deferred writers created afterwards use the same interner. Has no effect on lines kept in compact
+    * storage (see {@link #setCompactStorage(boolean)}), or on writers that are streaming.
+    * @param interner The interner, which may be shared with other writers, or null to store every line separately
+    */
+   public void setInterner(PicoInterner interner) {
+      _interner = interner;
+   }
+   
+   public PicoInterner getInterner() {
+      return _interner;
+   }
+   
+   boolean hasSharedContent() {
+      return _sharedContent;
+   }
+   
+   void addLine(CharSequence text, int indent) {
+      if (_compact) {
+         PicoWriterItem last = _content.isEmpty() ? null : _content.get(_content.size() - 1);
+         CompactLines lines;
+         if (last instanceof CompactLines) {
+            lines = (CompactLines) last;
+         } else if (_spareLines != null) {
+            lines = _spareLines;
+            _spareLines = null;
+            _content.add(lines);
+         } else {
+            lines = new CompactLines();
+            _content.add(lines);
+         }
+         lines.add(text, indent);
+      } else if (_interner != null) {
+         _content.add(_interner.line(text, indent));
+      } else {
+         _content.add(new IndentedLine(text.toString(), indent));
+      }
+      // Lines are counted rather than items, as in compact mode a whole run of lines is a single item
+      if (_stream != null && ++_linesSinceAdvance >= StreamState.BATCH_SIZE) {
+         _linesSinceAdvance = 0;
+         _stream.advance();
+      }
+   }
+   
+   private void flush() {
+      flushRows();
+      addLine(_sb, _indents);
+      _sb.setLength(0);
+      _isDirty = false;
+   }
+   
+   private void flushRows() {
+      if (_rows != null && !_rows.isEmpty()) {
+         final int rows = _rows.getRowCount();
+         _columnRowsFlushed += rows;
+         if (_listener == null) {
+            _rows.flush(this, _columnAlignments);
+         } else {
+            Object token = _listener.flushStarted(this, rows);
+            try {
+               _rows.flush(this, _columnAlignments);
+            } finally {
+               _listener.flushFinished(this, token);
+            }
+         }
+      }
+   }
+   
+   /**
+    * Ends the line being written, if any, and writes out the rows waiting to be aligned, before an item that is not
+    * a line is added.
+    */
+   private void endPendingLines() {
+      if (_sb.length() > 0) {
+         flush();
+         _numLines++;
+      } else if (_rows != null && !_rows.isEmpty()) {
+         flushRows();
+         _isDirty = false;
+      }
+   }
+   
+   private void flushRowsOutsideGroup() {
+      if (!_alignmentGroup) {
+         flushRows();
+      }
+   }
+   
+   /**
+    * Sets how a column is aligned by {@link #writeln(String...)}. Columns are aligned left unless set otherwise.
+    * @param column The index of the column, starting at zero
+    * @param alignment The alignment of the column
+    */
+   public void setColumnAlignment(int column, ColumnAlignment alignment) {
+      if (_columnAlignments == null || _columnAlignments.length <= column) {
+         ColumnAlignment[] alignments = new ColumnAlignment[column + 1];
+         if (_columnAlignments != null) {
+            System.arraycopy(_columnAlignments, 0, alignments, 0, _columnAlignments.length);
+         }
+         _columnAlignments = alignments;
+      }
+      _columnAlignments[column] = alignment;
+   }
+   
+   /**
+    * Starts an alignment group. Columns written with {@link #writeln(String...)} line up with every other row in
+    * the group, even where the indentation changes between rows (normally, changing the indentation ends the
+    * alignment). Writing a single line or a deferred writer still ends the rows written so far.
+    */
+   public void beginAlignmentGroup() {
+      beforeChange();
+      _alignmentGroup = true;
+   }
+   
+   /**
+    * Ends the alignment group started by {@link #beginAlignmentGroup()}, writing out its rows.
+    */
+   public void endAlignmentGroup() {
+      beforeChange();
+      _alignmentGroup = false;
+      flushRows();
+   }
+   
+   /**
+    * Collapses each run of blank lines in the output of this writer to a single blank line. When this writer has
+    * line filters (see {@link #addLineFilter(PicoLineFilter)}), this is done after the last of them, so that lines
+    * a filter leaves blank are collapsed too.
+    * @param normalizeAdjacentBlankRows true to collapse runs of blank lines
+    */
    public void setNormalizeAdjacentBlankRows(boolean normalizeAdjacentBlankRows) {
       _normalizeAdjacentBlankRows = normalizeAdjacentBlankRows;
    }
    
+   /**
+    * Adds a filter that every line passes through as this writer is rendered, after any filters added before it.
+    * Filters are applied in the same pass as the render, to the output of the writer that is rendered (the filters
+    * of deferred writers beneath it are not used), and also apply to {@link #measure()} and {@link #getStats()}.
+    * @param filter The filter, e.g. {@link PicoLineFilters#trimTrailingWhitespace()}
+    */
+   public void addLineFilter(PicoLineFilter filter) {
+      if (_lineFilters == null) {
+         _lineFilters = new PicoLineFilter[] { filter };
+      } else {
+         PicoLineFilter[] filters = new PicoLineFilter[_lineFilters.length + 1];
+         System.arraycopy(_lineFilters, 0, filters, 0, _lineFilters.length);
+         filters[_lineFilters.length] = filter;
+         _lineFilters = filters;
+      }
+   }
+   
+   public void clearLineFilters() {
+      _lineFilters = null;
+   }
+   
+   boolean hasLineFilters() {
+      return _lineFilters != null;
+   }
+   
+   /**
+    * @param sink The destination of the rendered output
+    * @param lineSeparator The line separator
+    * @param useRenderCache Whether kept output may be written as whole text, which is never the case when there are
+    * line filters, as every line must pass through them
+    * @return A context for rendering this writer to the sink, through its line filters
+    */
+   RenderContext outputContext(LineSink sink, String lineSeparator, boolean useRenderCache) {
+      if (_lineFilters == null) {
+         return new RenderContext(sink, lineSeparator, _normalizeAdjacentBlankRows, useRenderCache);
+      }
+      PicoLineFilter[] filters = _lineFilters;
+      if (_normalizeAdjacentBlankRows) {
+         // Normalized as the last filter, rather than as lines are rendered, so that it sees the filtered lines
+         filters = new PicoLineFilter[_lineFilters.length + 1];
+         System.arraycopy(_lineFilters, 0, filters, 0, _lineFilters.length);
+         filters[_lineFilters.length] = PicoLineFilters.maxBlankRows(1);
+      }
+      return new RenderContext(new FilterSink(sink, filters), lineSeparator, false, false);
+   }
+   
+   /**
+    * Renders this writer (and all deferred writers beneath it) directly to the supplied output, without
+    * building an intermediate {@link String}. The output is identical to that of {@link #toString()}.
+    * @param out The destination, e.g. a {@link java.io.Writer} or a {@link StringBuilder}
+    * @throws IOException If the destination fails to accept the text
+    */
+   public void writeTo(Appendable out) throws IOException {
+      writeTo(out, 0);
+   }
+   
+   /**
+    * Renders this writer directly to the supplied output, as per {@link #toString(int)}.
+    * @param out The destination, e.g. a {@link java.io.Writer} or a {@link StringBuilder}
+    * @param indentBase The number of indents to prefix every line with
+    * @throws IOException If the destination fails to accept the text
+    */
+   public void writeTo(Appendable out, int indentBase) throws IOException {
+      render(outputContext(new AppendableSink(out, _lineSeparator), _lineSeparator, true), indentBase, null, false /* lastRowWasBlank */);
+   }
+   
+   /**
+    * Renders this writer directly to the supplied output, as per {@link #writeTo(Appendable)}, and records where
+    * each line came from in an index.
+    * @param out The destination, e.g. a {@link java.io.Writer} or a {@link StringBuilder}
+    * @param index The index, which is cleared first
+    * @throws IOException If the destination fails to accept the text
+    */
+   public void writeTo(Appendable out, PicoLineIndex index) throws IOException {
+      render(index, new AppendableSink(out, _lineSeparator), 0);
+   }
+   
+   void render(PicoLineIndex index, LineSink out, int indentBase) throws IOException {
+      index.clear();
+      // Kept output is written as whole text, so is not used, as the index must see every line as it is rendered
+      render(outputContext(index.sink(out, _lineSeparator), _lineSeparator, false).withIndex(index), indentBase, null, false /* lastRowWasBlank */);
+   }
+   
+   /**
+    * Sets the text written at the end of every line when this writer is rendered (defaults to "\n").
+    * @param lineSeparator The line separator, e.g. "\r\n"
+    */
+   public void setLineSeparator(String lineSeparator) {
+      _lineSeparator = lineSeparator == null ? SEP : lineSeparator;
+   }
+   
+   public String getLineSeparator() {
+      return _lineSeparator;
+   }
+   
+   /**
+    * Computes the exact number of characters that {@link #toString()} would produce, without rendering anything.
+    * Lines suppressed by {@link #setNormalizeAdjacentBlankRows(boolean)}, {@link #setGenerate(boolean)} and
+    * {@link #setGenerateIfEmpty(boolean)} are not counted.
+    * @return The length of the rendered output
+    */
+   public long measure() {
+      return measure(0);
+   }
+   
+   /**
+    * Computes the exact number of characters that {@link #toString(int)} would produce, as per {@link #measure()}.
+    * @param indentBase The number of indents to prefix every line with
+    * @return The length of the rendered output
+    */
+   public long measure(int indentBase) {
+      MeasuringSink sink = new MeasuringSink(_lineSeparator);
+      try {
+         render(outputContext(sink, _lineSeparator, true).quiet(), indentBase, null, false /* lastRowWasBlank */);
+      } catch (IOException e) {
+         throw new RuntimeException(e); // MeasuringSink does not throw
+      }
+      return sink.getLength();
+   }
+   
    public String toString(int indentBase) {
-      StringBuilder sb = new StringBuilder();
-      render(sb, indentBase, _normalizeAdjacentBlankRows, false /* lastRowWasBlank */);
+      long length = measure(indentBase);
+      if (length > Integer.MAX_VALUE - 8) {
+         throw new RuntimeException("Rendered output is too large for a String (" + length + " characters)");
+      }
+      StringBuilder sb = new StringBuilder((int) length);
+      try {
+         writeTo(sb, indentBase);
+      } catch (IOException e) {
+         throw new RuntimeException(e); // StringBuilder does not throw
+      }
       return sb.toString();
    }
    
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of writers and render buffers, for generating code over and over (such as once per request in a long
+ * running service) without allocating new trees each time.
+ * <pre>
+ * PicoWriterPool pool = new PicoWriterPool();
+ * PicoWriter top = pool.acquire();
+ * // ... write to top, and deferred writers created from it
+ * String code = pool.toString(top);
+ * pool.release(top);
+ * </pre>
+ * Deferred writers created from a pooled writer are taken from the same pool, and go back to it when the writer
+ * they were created from is released or reset. Once released, a writer (and every deferred writer beneath it) must
+ * not be used again. Writers attached with {@link PicoWriter#writeln(PicoWriter)} are not released.
+ * <p>
+ * The pool is thread safe, each writer taken from it should only be used by one thread at a time.
+ * @author agent
+ */
+public class PicoWriterPool {
+   private static final int MAX_BUFFER_CAPACITY = 16 * 1024 * 1024; // Larger buffers are left to the garbage collector
+
+   private final int                 _maxWriters;
+   private final int                 _maxBuffers;
+   private final List<PicoWriter>    _writers = new ArrayList<>();
+   private final List<StringBuilder> _buffers = new ArrayList<>();
+
+   public PicoWriterPool() {
+      this(1024, 16);
+   }
+
+   /**
+    * @param maxWriters The maximum number of idle writers kept by the pool
+    * @param maxBuffers The maximum number of idle render buffers kept by the pool
+    */
+   public PicoWriterPool(int maxWriters, int maxBuffers) {
+      _maxWriters = maxWriters;
+      _maxBuffers = maxBuffers;
+   }
+
+   /**
+    * @return A cleared writer, with default settings
+    */
+   public PicoWriter acquire() {
+      PicoWriter writer = take();
+      if (writer == null) {
+         writer = new PicoWriter();
+         writer.recycle(this);
+      }
+      return writer;
+   }
+
+   /**
+    * @param indentText The indent text of the writer
+    * @return A cleared writer, with default settings other than its indent text
+    */
+   public PicoWriter acquire(String indentText) {
+      PicoWriter writer = acquire();
+      writer.setIndentText(indentText);
+      return writer;
+   }
+
+   /**
+    * Clears a writer, and every deferred writer beneath it, and returns them to the pool.
+    * @param writer The writer to release, which need not have come from the pool
+    */
+   public void release(PicoWriter writer) {
+      List<PicoWriter> pending = new ArrayList<>();
+      pending.add(writer);
+      while (!pending.isEmpty()) {
+         PicoWriter next = pending.remove(pending.size() - 1);
+         // Writers beneath a shared content list may still be in use by other writers (see PicoInterner)
+         if (!next.hasSharedContent()) {
+            for (PicoWriterItem item : next.getContent()) {
+               if (item instanceof PicoWriter) {
+                  pending.add((PicoWriter) item);
+               }
+            }
+         }
+         next.recycle(this);
+         synchronized (this) {
+            if (_writers.size() < _maxWriters) {
+               _writers.add(next);
+            }
+         }
+      }
+   }
+
+   synchronized PicoWriter take() {
+      return _writers.isEmpty() ? null : _writers.remove(_writers.size() - 1);
+   }
+
+   /**
+    * Renders a writer, as per {@link PicoWriter#toString()}, using a pooled buffer.
+    * @param writer The writer to render
+    * @return The rendered output
+    */
+   public String toString(PicoWriter writer) {
+      StringBuilder sb;
+      synchronized (this) {
+         sb = _buffers.isEmpty() ? new StringBuilder() : _buffers.remove(_buffers.size() - 1);
+      }
+      try {
+         writer.writeTo(sb);
+         return sb.toString();
+      } catch (IOException e) {
+         throw new RuntimeException(e); // StringBuilder does not throw
+      } finally {
+         sb.setLength(0);
+         if (sb.capacity() <= MAX_BUFFER_CAPACITY) {
+            synchronized (this) {
+               if (_buffers.size() < _maxBuffers) {
+                  _buffers.add(sb);
+               }
+            }
+         }
+      }
+   }
+
+   /**
+    * @return The number of idle writers held by the pool
+    */
+   public synchronized int getIdleWriterCount() {
+      return _writers.size();
+   }
+}
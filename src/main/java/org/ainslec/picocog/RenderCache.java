@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The rendered output of one writer, kept so that it can be replayed if the writer has not changed since it was
+ * rendered (see {@link PicoWriter#setIncrementalRender(boolean)}).
+ * <p>
+ * The output is held as a list of parts: the text of the writer's own lines, and references to the caches of
+ * its deferred writers. Re-rendering a writer after one of its deferred writers has changed therefore only
+ * re-renders that deferred writer, and links in the others as they are.
+ * @author agent
+ */
+class RenderCache implements LineSink {
+   private final int          _indentBase;
+   private final String       _indentText;
+   private final String       _lineSeparator;
+   private final boolean      _normalizeAdjacentBlankRows;
+   private final boolean      _lastRowWasBlankBefore;
+   boolean                    _lastRowWasBlankAfter;
+   
+   private final List<Object> _parts    = new ArrayList<>(); // Strings and RenderCaches, in output order
+   private StringBuilder      _sb       = new StringBuilder();
+   private IndentPrefixes     _prefixes = null;
+   
+   RenderCache(RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) {
+      _indentBase                 = indentBase;
+      _indentText                 = indentText;
+      _lineSeparator              = ctx._lineSeparator;
+      _normalizeAdjacentBlankRows = ctx._normalizeAdjacentBlankRows;
+      _lastRowWasBlankBefore      = lastRowWasBlank && ctx._normalizeAdjacentBlankRows;
+   }
+   
+   /**
+    * @return true if this cache holds the output of a render with the same parameters
+    */
+   boolean matches(RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) {
+      return _indentBase == indentBase
+         && (_indentText == null ? indentText == null : _indentText.equals(indentText))
+         && _lineSeparator.equals(ctx._lineSeparator)
+         && _normalizeAdjacentBlankRows == ctx._normalizeAdjacentBlankRows
+         && _lastRowWasBlankBefore == (lastRowWasBlank && ctx._normalizeAdjacentBlankRows);
+   }
+   
+   @Override
+   public void writeLine(String indentText, int indentLevel, CharSequence line) {
+      if (indentLevel > 0) {
+         if (_prefixes == null) {
+            _prefixes = new IndentPrefixes();
+         }
+         _sb.append(_prefixes.get(indentText, indentLevel));
+      }
+      _sb.append(line);
+      _sb.append(_lineSeparator);
+   }
+   
+   @Override
+   public void writeText(CharSequence text) {
+      _sb.append(text);
+   }
+   
+   /**
+    * Links in the cached output of a deferred writer.
+    */
+   void append(RenderCache inner) {
+      flushText();
+      _parts.add(inner);
+   }
+   
+   /**
+    * Called once the writer has been completely rendered into this cache.
+    */
+   void finish() {
+      flushText();
+      _sb       = null;
+      _prefixes = null;
+   }
+   
+   /**
+    * Writes the cached output to a sink (or links it into another cache).
+    */
+   void replay(LineSink sink) throws IOException {
+      if (sink instanceof RenderCache) {
+         ((RenderCache) sink).append(this);
+         return;
+      }
+      // Nested caches are followed with an explicit stack, as they can be as deeply nested as the writers
+      List<RenderCache> caches  = new ArrayList<>();
+      int[]             indices = new int[16];
+      caches.add(this);
+      while (!caches.isEmpty()) {
+         int         top   = caches.size() - 1;
+         RenderCache cache = caches.get(top);
+         if (indices[top] == cache._parts.size()) {
+            caches.remove(top);
+            continue;
+         }
+         Object part = cache._parts.get(indices[top]++);
+         if (part instanceof RenderCache) {
+            if (caches.size() == indices.length) {
+               int[] grown = new int[indices.length * 2];
+               System.arraycopy(indices, 0, grown, 0, indices.length);
+               indices = grown;
+            }
+            indices[caches.size()] = 0;
+            caches.add((RenderCache) part);
+         } else {
+            sink.writeText((String) part);
+         }
+      }
+   }
+   
+   private void flushText() {
+      if (_sb.length() > 0) {
+         _parts.add(_sb.toString());
+         _sb.setLength(0);
+      }
+   }
+}
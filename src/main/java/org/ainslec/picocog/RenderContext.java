@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+/**
+ * The settings that stay the same for the whole of one render of a {@link PicoWriter} tree.
+ * @author agent
+ */
+class RenderContext {
+   final LineSink      _sink;
+   final String        _lineSeparator;
+   final boolean       _normalizeAdjacentBlankRows;
+   final boolean       _useRenderCache;   // Whether kept output (of incremental writers and fragments) may be written as whole text
+   final boolean       _notifyListeners;  // Whether render listeners are told about this render
+   final PicoLineIndex _index;            // Told which writer and item each line comes from, if not null
+   
+   RenderContext(LineSink sink, String lineSeparator, boolean normalizeAdjacentBlankRows, boolean useRenderCache) {
+      this(sink, lineSeparator, normalizeAdjacentBlankRows, useRenderCache, true, null);
+   }
+   
+   private RenderContext(LineSink sink, String lineSeparator, boolean normalizeAdjacentBlankRows, boolean useRenderCache, boolean notifyListeners, PicoLineIndex index) {
+      _sink                       = sink;
+      _lineSeparator              = lineSeparator;
+      _normalizeAdjacentBlankRows = normalizeAdjacentBlankRows;
+      _useRenderCache             = useRenderCache;
+      _notifyListeners            = notifyListeners;
+      _index                      = index;
+   }
+   
+   /**
+    * @return A context with the same settings, that renders to a different sink
+    */
+   RenderContext withSink(LineSink sink) {
+      return new RenderContext(sink, _lineSeparator, _normalizeAdjacentBlankRows, _useRenderCache, _notifyListeners, _index);
+   }
+   
+   /**
+    * @return A context with the same settings, for renders that produce no output (such as measuring), which
+    * render listeners are not told about
+    */
+   RenderContext quiet() {
+      return new RenderContext(_sink, _lineSeparator, _normalizeAdjacentBlankRows, _useRenderCache, false, _index);
+   }
+   
+   /**
+    * @return A context with the same settings, that records which writer and item each line comes from in the index
+    */
+   RenderContext withIndex(PicoLineIndex index) {
+      return new RenderContext(_sink, _lineSeparator, _normalizeAdjacentBlankRows, _useRenderCache, _notifyListeners, index);
+   }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+
+/**
+ * The output of a writer in streaming mode (see {@link PicoWriter#startStreaming(Appendable)}), shared by every
+ * deferred writer beneath it. Streaming trees are only written to from one thread (they cannot be concurrent), so
+ * nothing here is synchronized.
+ * @author agent
+ */
+class StreamState {
+   static final int BATCH_SIZE = 1024; // Lines added to a writer before the stream is advanced without being asked
+   
+   final PicoWriter    _root;
+   final RenderContext _ctx;
+   boolean             _lastRowWasBlank = false;
+   private boolean     _advancing       = false;
+   
+   StreamState(PicoWriter root, RenderContext ctx) {
+      _root = root;
+      _ctx  = ctx;
+   }
+   
+   /**
+    * Writes out, and frees, everything before the earliest deferred writer that is still open.
+    * @return true if nothing open remains
+    */
+   boolean advance() {
+      if (_advancing) {
+         return false;
+      }
+      _advancing = true;
+      try {
+         return _root.streamPrefix(this);
+      } catch (IOException e) {
+         throw new RuntimeException(e);
+      } finally {
+         _advancing = false;
+      }
+   }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+
+/**
+ * A block of multi-line text written with {@link PicoWriter#writeBlock(CharSequence)}. The text is not copied or
+ * split, only the offsets of each line are recorded, and each line is indented when it is rendered.
+ * @author agent
+ */
+class TextBlock implements PicoWriterItem {
+   private final CharSequence _text;
+   private final int          _indent;
+   private final int[]        _starts;
+   private final int[]        _ends;     // Just before the line break at the end of each line
+   
+   /**
+    * @param text The text, with lines separated by "\n", "\r\n" or "\r". A line break at the very end does not start another line.
+    * @param indent The indentation level of every line
+    * @param stripCommonIndent true to remove the leading whitespace that every line (other than blank lines) starts with
+    */
+   TextBlock(CharSequence text, int indent, boolean stripCommonIndent) {
+      // A String returns itself, and a CharBuffer a view that does not move if the caller later moves the buffer
+      _text   = text.subSequence(0, text.length());
+      _indent = indent;
+      
+      final int length = _text.length();
+      int   count  = 0;
+      int[] starts = new int[16];
+      int[] ends   = new int[16];
+      int   start  = 0;
+      for (int i = 0; i <= length; i++) {
+         char c = i < length ? _text.charAt(i) : '\n';
+         if (c == '\n' || c == '\r') {
+            if (i == length && start == length) {
+               break; // Nothing after the final line break
+            }
+            if (count == starts.length) {
+               starts = grow(starts);
+               ends   = grow(ends);
+            }
+            starts[count] = start;
+            ends[count]   = i;
+            count++;
+            if (c == '\r' && i + 1 < length && _text.charAt(i + 1) == '\n') {
+               i++;
+            }
+            start = i + 1;
+         }
+      }
+      _starts = trim(starts, count);
+      _ends   = trim(ends, count);
+      
+      if (stripCommonIndent) {
+         stripCommonIndent();
+      }
+   }
+   
+   private void stripCommonIndent() {
+      int common = -1;
+      for (int line = 0; line < _starts.length; line++) {
+         int start = _starts[line];
+         int end   = _ends[line];
+         int i     = start;
+         while (i < end && isIndentChar(_text.charAt(i))) {
+            i++;
+         }
+         if (i == end) {
+            continue; // Blank lines do not count
+         }
+         if (common < 0 || i - start < common) {
+            common = i - start;
+         }
+      }
+      if (common <= 0) {
+         return;
+      }
+      for (int line = 0; line < _starts.length; line++) {
+         _starts[line] = Math.min(_starts[line] + common, _ends[line]);
+      }
+   }
+   
+   private static boolean isIndentChar(char c) {
+      return c == ' ' || c == '\t';
+   }
+   
+   int getLineCount() {
+      return _starts.length;
+   }
+   
+   /**
+    * Renders every line, following the same blank row rules as {@link PicoWriter}.
+    * @return true if the last row written (or suppressed) was blank
+    */
+   boolean render(RenderContext ctx, int indentBase, String indentText, boolean lastRowWasBlank) throws IOException {
+      LineView view = new LineView();
+      for (int i = 0; i < _starts.length; i++) {
+         boolean thisRowIsBlank = _starts[i] == _ends[i];
+         
+         if (ctx._normalizeAdjacentBlankRows && lastRowWasBlank && thisRowIsBlank) {
+            // Don't write the line if we already had a blank line
+         } else {
+            view._start = _starts[i];
+            view._end   = _ends[i];
+            ctx._sink.writeLine(indentText, indentBase + _indent, view);
+         }
+         
+         lastRowWasBlank = thisRowIsBlank;
+      }
+      return lastRowWasBlank;
+   }
+   
+   private static int[] grow(int[] array) {
+      int[] grown = new int[array.length * 2];
+      System.arraycopy(array, 0, grown, 0, array.length);
+      return grown;
+   }
+   
+   private static int[] trim(int[] array, int length) {
+      int[] trimmed = new int[length];
+      System.arraycopy(array, 0, trimmed, 0, length);
+      return trimmed;
+   }
+   
+   /**
+    * A view onto one line of the text, reused for every line that is rendered, so only valid for the duration of a
+    * call to the sink.
+    */
+   private class LineView implements CharSequence {
+      int _start;
+      int _end;
+      
+      @Override
+      public int length() {
+         return _end - _start;
+      }
+      
+      @Override
+      public char charAt(int index) {
+         return _text.charAt(_start + index);
+      }
+      
+      @Override
+      public CharSequence subSequence(int start, int end) {
+         return _text.subSequence(_start + start, _start + end);
+      }
+      
+      @Override
+      public String toString() {
+         return _text.subSequence(_start, _end).toString();
+      }
+   }
+}
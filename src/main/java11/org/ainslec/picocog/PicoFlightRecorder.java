@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A {@link PicoRenderListener} that records JDK Flight Recorder events for each writer rendered
+ * ({@code org.ainslec.picocog.Render}) and each set of column rows flushed ({@code org.ainslec.picocog.Flush}).
+ * Events are only created while a recording has them enabled.
+ * <pre>
+ * topWriter.setRenderListener(new PicoFlightRecorder());
+ * </pre>
+ * Requires a JVM with the jdk.jfr module (Java 11 or later). This class is built separately from the rest of the
+ * library, which only needs Java 8, and is simply never loaded on older JVMs. Not available in GWT.
+ * @author agent
+ */
+public class PicoFlightRecorder implements PicoRenderListener {
+
+   @Name("org.ainslec.picocog.Render")
+   @Label("Picocog Render")
+   @Category("Picocog")
+   @Description("Rendering of a writer, including the writers beneath it")
+   static class RenderEvent extends Event {
+      @Label("Writer")
+      @Description("Identity hash code of the writer")
+      int writer;
+
+      @Label("Items")
+      @Description("Number of lines and writers held directly by the writer")
+      int items;
+   }
+
+   @Name("org.ainslec.picocog.Flush")
+   @Label("Picocog Column Flush")
+   @Category("Picocog")
+   @Description("Aligning rows of columns and adding them to a writer")
+   static class FlushEvent extends Event {
+      @Label("Writer")
+      @Description("Identity hash code of the writer")
+      int writer;
+
+      @Label("Rows")
+      int rows;
+   }
+
+   private static final RenderEvent RENDER_PROBE = new RenderEvent();
+   private static final FlushEvent  FLUSH_PROBE  = new FlushEvent();
+
+   @Override
+   public Object renderStarted(PicoWriter writer) {
+      if (!RENDER_PROBE.isEnabled()) {
+         return null;
+      }
+      RenderEvent event = new RenderEvent();
+      event.writer = System.identityHashCode(writer);
+      event.items  = writer.getContent().size();
+      event.begin();
+      return event;
+   }
+
+   @Override
+   public void renderFinished(PicoWriter writer, Object token) {
+      if (token != null) {
+         ((RenderEvent) token).commit();
+      }
+   }
+
+   @Override
+   public Object flushStarted(PicoWriter writer, int rows) {
+      if (!FLUSH_PROBE.isEnabled()) {
+         return null;
+      }
+      FlushEvent event = new FlushEvent();
+      event.writer = System.identityHashCode(writer);
+      event.rows   = rows;
+      event.begin();
+      return event;
+   }
+
+   @Override
+   public void flushFinished(PicoWriter writer, Object token) {
+      if (token != null) {
+         ((FlushEvent) token).commit();
+      }
+   }
+}
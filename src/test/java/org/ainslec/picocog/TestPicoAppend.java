@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoAppend extends TestCase {
+
+   public void testAppendMatchesWriteln() {
+      for (boolean compact : new boolean[] { false, true }) {
+         PicoWriter expected = new PicoWriter();
+         expected.writeln_r("class A {");
+         expected.writeln("private long count = -9000000000;");
+         expected.writeln("private int[] ids = new int[42];");
+         expected.writeln("");
+         expected.writeln_l("}");
+
+         char[] name = "xxidsxx".toCharArray();
+         PicoWriter w = new PicoWriter();
+         w.setCompactStorage(compact);
+         w.writeln_r("class A {");
+         w.append("private ").append(new StringBuilder("long")).append(' ').append("count").append(" = ").append(-9000000000L).append(';').endln();
+         w.append("private int[] ").append(name, 2, 3).append(" = new ").append("xint[", 1, 5).append(42).append("];").endln();
+         w.endln();
+         w.writeln_l("}");
+
+         assertEquals(expected.toString(), w.toString());
+      }
+   }
+
+   public void testAppendedTextPrefixesNextLine() {
+      PicoWriter w = new PicoWriter();
+      w.append("a");
+      w.writeln("b");
+      w.append("c");
+      PicoWriter deferred = w.createDeferredWriter();
+      deferred.writeln("d");
+      assertEquals("ab\nc\nd\n", w.toString());
+   }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoChannelRenderer extends TestCase {
+
+   private static byte[] render(PicoChannelRenderer renderer, PicoWriter w) throws Exception {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      renderer.render(w, Channels.newChannel(bytes));
+      return bytes.toByteArray();
+   }
+
+   public void testMatchesToString() throws Exception {
+      PicoChannelRenderer renderer = new PicoChannelRenderer(16); // Tiny buffer, forces many writes to the channel
+      for (boolean normalize : new boolean[] {false, true}) {
+         PicoWriter w = TestPicoRendering.createSampleTree(normalize);
+         byte[] expected = w.toString().getBytes(StandardCharsets.UTF_8);
+         assertTrue(Arrays.equals(expected, render(renderer, w)));
+         assertTrue(Arrays.equals(expected, render(renderer, w))); // Renderer is reusable
+      }
+   }
+
+   public void testCharsetAndLineSeparator() throws Exception {
+      PicoWriter w = new PicoWriter("  ");
+      w.writeln_r("// café 😀");
+      StringBuilder longLine = new StringBuilder();
+      for (int i = 0; i < 5000; i++) {
+         longLine.append("é😀");
+      }
+      w.writeln(longLine.toString());
+      w.writeln_l("// end");
+
+      PicoChannelRenderer renderer = new PicoChannelRenderer(64);
+      renderer.setLineSeparator("\r\n");
+      String expected = w.toString().replace("\n", "\r\n");
+      assertTrue(Arrays.equals(expected.getBytes(StandardCharsets.UTF_8), render(renderer, w)));
+
+      Charset latin1 = StandardCharsets.ISO_8859_1;
+      renderer.setCharset(latin1);
+      assertTrue(Arrays.equals(expected.getBytes(latin1), render(renderer, w)));
+
+      renderer.setLineSeparator(null);
+      w.setLineSeparator("\r");
+      assertTrue(Arrays.equals(w.toString().getBytes(latin1), render(renderer, w)));
+   }
+
+   public void testRenderToFile() throws Exception {
+      PicoWriter w = TestPicoRendering.createSampleTree(true);
+      Path path = Files.createTempFile("picocog", ".java");
+      try {
+         new PicoChannelRenderer().render(w, path);
+         assertEquals(w.toString(), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+      } finally {
+         Files.delete(path);
+      }
+   }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoColumns extends TestCase {
+
+   public void testColumns() {
+      PicoWriter w = new PicoWriter();
+      w.writeln("private ", "int ",     "a;");
+      w.writeln("public ",  "String ",  "longerName;", " // comment");
+      w.writeln("private ", null,       "b;");
+      w.writeln("// done");
+      assertEquals(
+         "private int    a;         \n" +
+         "public  String longerName; // comment\n" +
+         "private        b;         \n" +
+         "// done\n", w.toString());
+   }
+
+   public void testRightAlignment() {
+      PicoWriter w = new PicoWriter();
+      w.setColumnAlignment(1, ColumnAlignment.RIGHT);
+      w.writeln("ONE", " = ", "1", ",");
+      w.writeln("TWO", " = ", "1000", ",");
+      w.writeln("THREE", " = ", "10", ";");
+      w.writeln("");
+      assertEquals(
+         "ONE   = 1   ,\n" +
+         "TWO   = 1000,\n" +
+         "THREE = 10  ;\n" +
+         "\n", w.toString());
+      
+      PicoWriter right = new PicoWriter();
+      right.setColumnAlignment(0, ColumnAlignment.RIGHT);
+      right.setColumnAlignment(2, ColumnAlignment.RIGHT);
+      right.writeln("1", " | ", "10");
+      right.writeln("100", " | ", "1");
+      right.writeln("");
+      assertEquals(
+         "  1 | 10\n" +
+         "100 |  1\n" +
+         "\n", right.toString());
+   }
+
+   public void testAlignmentGroupSurvivesIndentation() {
+      PicoWriter w = new PicoWriter("  ");
+      w.beginAlignmentGroup();
+      w.writeln("a", " = 1;");
+      w.indentRight();
+      w.writeln("longer", " = 2;");
+      w.indentLeft();
+      w.writeln("b", " = 3;");
+      w.endAlignmentGroup();
+      w.writeln("// done");
+      assertEquals(
+         "a      = 1;\n" +
+         "  longer = 2;\n" +
+         "b      = 3;\n" +
+         "// done\n", w.toString());
+      
+      PicoWriter ungrouped = new PicoWriter("  ");
+      ungrouped.writeln("a", " = 1;");
+      ungrouped.indentRight();
+      ungrouped.writeln("longer", " = 2;");
+      ungrouped.indentLeft();
+      ungrouped.writeln("// done");
+      assertEquals(
+         "a = 1;\n" +
+         "  longer = 2;\n" +
+         "// done\n", ungrouped.toString());
+   }
+
+   public void testDeferredWriterEndsRows() {
+      PicoWriter w = new PicoWriter();
+      w.beginAlignmentGroup();
+      w.writeln("int ", "a;");
+      w.createDeferredWriter().writeln("// deferred");
+      w.writeln(new PicoWriter().writeln("// attached"));
+      w.writeln("String ", "b;");
+      w.endAlignmentGroup();
+      w.writeln("// done");
+      assertEquals(
+         "int a;\n" +
+         "// deferred\n" +
+         "// attached\n" +
+         "String b;\n" +
+         "// done\n", w.toString());
+   }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoConcurrent extends TestCase {
+
+   private static final int SECTIONS = 16;
+
+   private static void fillSection(PicoWriter section, int index) {
+      section.writeln_r("void section" + index + "() {");
+      for (int i = 0; i < 500; i++) {
+         section.writeln("call(" + index + ", " + i + ");");
+      }
+      section.writeln_l("}");
+   }
+
+   private static PicoWriter buildSequentially() {
+      PicoWriter top = new PicoWriter();
+      top.writeln_r("class Sections {");
+      for (int i = 0; i < SECTIONS; i++) {
+         fillSection(top.createDeferredWriter(), i);
+         top.writeln("// After section " + i);
+      }
+      top.writeln_l("}");
+      return top;
+   }
+
+   public void testSiblingWritersFilledConcurrently() throws Exception {
+      PicoWriter top = new PicoWriter();
+      top.setConcurrent(true);
+      top.writeln_r("class Sections {");
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      final CountDownLatch done = new CountDownLatch(SECTIONS);
+      try {
+         for (int i = 0; i < SECTIONS; i++) {
+            final PicoWriter section = top.createDeferredWriter();
+            final int index = i;
+            executor.execute(new Runnable() {
+               public void run() {
+                  fillSection(section, index);
+                  section.seal();
+                  done.countDown();
+               }
+            });
+            top.writeln("// After section " + i); // The parent keeps writing while the sections are filled in
+         }
+         top.writeln_l("}");
+         assertTrue(done.await(30, TimeUnit.SECONDS));
+      } finally {
+         executor.shutdown();
+      }
+
+      try {
+         top.toString();
+         fail("Unsealed concurrent writer should not render");
+      } catch (RuntimeException e) {
+         // Expected
+      }
+
+      top.seal();
+      assertTrue(top.isSealed());
+      assertEquals(buildSequentially().toString(), top.toString());
+   }
+
+   public void testSealedWriterRejectsContent() {
+      PicoWriter w = new PicoWriter();
+      PicoWriter deferred = w.createDeferredIndentedWriter("{", "}");
+      w.seal();
+      assertTrue(deferred.isSealed());
+      try {
+         deferred.writeln("late");
+         fail("Sealed writer should reject content");
+      } catch (RuntimeException e) {
+         // Expected
+      }
+      assertEquals(w.toString(), w.toString());
+   }
+
+   public void testSealedIncrementalTreeRenderedConcurrently() throws Exception {
+      final PicoWriter top = buildSequentially();
+      top.setIncrementalRender(true);
+      top.seal();
+      String expected = buildSequentially().toString();
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<String>> renders = new ArrayList<>();
+         for (int i = 0; i < 32; i++) {
+            renders.add(executor.submit(new Callable<String>() {
+               public String call() {
+                  return top.toString();
+               }
+            }));
+         }
+         for (Future<String> render : renders) {
+            assertEquals(expected, render.get(30, TimeUnit.SECONDS));
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoContributorRunner extends TestCase {
+
+   private static SourceCodeContributor createContributor(final int n) {
+      return new SourceCodeContributor() {
+         @Override
+         public void contribute(PicoWriter w) {
+            try {
+               Thread.sleep((n * 7) % 5); // Finish out of order
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            if (n % 10 == 9) {
+               throw new IllegalStateException("Contributor " + n + " failed");
+            }
+            w.writeln_r("void m" + n + "() {");
+            w.createDeferredWriter().writeln("// body " + n);
+            w.writeln_l("}");
+         }
+      };
+   }
+
+   private static PicoWriter createTree(boolean concurrent, int count, boolean useRunner) {
+      PicoWriter top = new PicoWriter();
+      top.setConcurrent(concurrent);
+      top.writeln_r("class A {");
+      PicoContributorRunner runner = new PicoContributorRunner();
+      for (int i = 0; i < count; i++) {
+         if (useRunner) {
+            runner.add(top, createContributor(i));
+         } else {
+            createContributor(i).contribute(top.createDeferredWriter());
+         }
+         top.writeln("");
+      }
+      top.writeln_l("}");
+      runner.run();
+      return top;
+   }
+
+   public void testOutputMatchesSequentialRun() {
+      String expected = createTree(false, 9, false).toString();
+      for (int i = 0; i < 5; i++) {
+         assertEquals(expected, createTree(false, 9, true).toString());
+         PicoWriter concurrent = createTree(true, 9, true);
+         concurrent.seal();
+         assertEquals(expected, concurrent.toString());
+      }
+   }
+
+   public void testFailuresAreCollected() {
+      try {
+         createTree(false, 30, true);
+         fail("Contributors 9, 19 and 29 should have failed");
+      } catch (PicoContributorRunner.ContributorException e) {
+         assertEquals(3, e.getFailures().size());
+         assertEquals(9, e.getFailures().get(0).getIndex());
+         assertEquals(19, e.getFailures().get(1).getIndex());
+         assertEquals(29, e.getFailures().get(2).getIndex());
+         assertTrue(e.getFailures().get(2).getCause() instanceof IllegalStateException);
+         assertEquals(2, e.getSuppressed().length);
+      }
+   }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * Trees of deferred writers nested far deeper than a thread's stack could recurse.
+ * @author agent
+ */
+public class TestPicoDeepNesting extends TestCase {
+   private static final int DEPTH = 100000;
+
+   /**
+    * @return A chain of deferred writers, each holding a line before and after the next one, with a blank line and
+    * an empty writer (which is not generated) at every level
+    */
+   private static PicoWriter[] createChain(int depth) {
+      PicoWriter[] chain = new PicoWriter[depth];
+      PicoWriter w = new PicoWriter();
+      for (int i = 0; i < depth; i++) {
+         chain[i] = w;
+         w.writeln("{" + i);
+         w.writeln("");
+         w.createDeferredWriter().setGenerateIfEmpty(false);
+         PicoWriter inner = w.createDeferredWriter();
+         w.writeln("");
+         w.writeln("}" + i);
+         w = inner;
+      }
+      return chain;
+   }
+
+   private static String expected(int depth, boolean normalize) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < depth; i++) {
+         sb.append('{').append(i).append("\n\n");
+      }
+      for (int i = depth - 1; i >= 0; i--) {
+         // Only the innermost closing blank line follows another blank line
+         sb.append(normalize && i == depth - 1 ? "" : "\n").append('}').append(i).append('\n');
+      }
+      return sb.toString();
+   }
+
+   public void testDeepRender() {
+      for (boolean normalize : new boolean[] { false, true }) {
+         PicoWriter top = createChain(DEPTH)[0];
+         top.setNormalizeAdjacentBlankRows(normalize);
+         String expected = expected(DEPTH, normalize);
+         assertEquals(expected, top.toString());
+         assertEquals(expected.length(), top.measure());
+         PicoParallelRenderer parallel = new PicoParallelRenderer();
+         parallel.setThreshold(1000);
+         assertEquals(expected, parallel.render(top));
+      }
+   }
+
+   public void testDeepIncrementalRender() {
+      PicoWriter[] chain = createChain(DEPTH);
+      PicoWriter top = chain[0];
+      top.setIncrementalRender(true);
+      assertEquals(expected(DEPTH, false), top.toString());
+      assertEquals(expected(DEPTH, false), top.toString());
+      chain[DEPTH - 1].writeln("x");
+      String last = "}" + (DEPTH - 1) + "\n";
+      assertEquals(expected(DEPTH, false).replace(last, last + "x\n"), top.toString());
+      top.setIncrementalRender(false);
+      assertFalse(chain[DEPTH - 1].isIncrementalRender());
+   }
+
+   public void testDeepTreeWalks() {
+      PicoWriter[] chain = createChain(DEPTH);
+      PicoWriter top = chain[0];
+      PicoRenderTimings timings = new PicoRenderTimings();
+      top.setRenderListener(timings);
+      assertSame(timings, chain[DEPTH - 1].getRenderListener());
+
+      PicoStats stats = top.getStats();
+      assertEquals(DEPTH, stats.getMaxDepth());
+      assertEquals(DEPTH * 2, stats.getDeferredWriterCount());
+
+      top.seal();
+      assertTrue(chain[DEPTH - 1].isSealed());
+      assertEquals(expected(DEPTH, false), top.toString());
+
+      new PicoWriterPool(10, 1).release(top);
+   }
+
+   public void testDeepStreaming() {
+      StringBuilder out = new StringBuilder();
+      PicoWriter top = new PicoWriter();
+      top.startStreaming(out);
+      PicoWriter w = top;
+      for (int i = 0; i < DEPTH; i++) {
+         w.writeln("{" + i);
+         w.writeln("");
+         PicoWriter inner = w.createDeferredWriter();
+         w.writeln("");
+         w.writeln("}" + i);
+         w = inner;
+      }
+      top.finishStreaming();
+      assertEquals(expected(DEPTH, false), out.toString());
+   }
+}
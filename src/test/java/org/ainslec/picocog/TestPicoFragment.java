@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoFragment extends TestCase {
+
+   private static PicoFragment createGetter() {
+      return PicoFragment.of(new SourceCodeContributor() {
+         @Override
+         public void contribute(PicoWriter w) {
+            w.writeln("");
+            w.writeln_r("int get() {");
+            w.writeln("return 1;");
+            w.writeln_l("}");
+         }
+      });
+   }
+
+   /**
+    * Writes the same lines as the fragment, in place, for comparison.
+    */
+   private static void writeGetter(PicoWriter w) {
+      w.writeln("");
+      w.writeln_r("int get() {");
+      w.writeln("return 1;");
+      w.writeln_l("}");
+   }
+
+   private static PicoWriter createTree(PicoFragment fragment, boolean normalize) {
+      PicoWriter top = new PicoWriter();
+      top.setNormalizeAdjacentBlankRows(normalize);
+      top.writeln_r("class A {");
+      top.writeln("");
+      if (fragment == null) { writeGetter(top); } else { top.writeln(fragment); }
+      top.writeln_r("class B {");
+      PicoWriter inner = top.createDeferredWriter();
+      if (fragment == null) { writeGetter(inner); } else { inner.writeln(fragment); }
+      top.writeln_l("}");
+      top.writeln_l("}");
+      return top;
+   }
+
+   public void testFragmentMatchesInlineLines() {
+      PicoFragment fragment = createGetter();
+      for (boolean normalize : new boolean[] { false, true }) {
+         String expected = createTree(null, normalize).toString();
+         assertEquals(expected, createTree(fragment, normalize).toString());
+         // A second render reuses the kept text
+         assertEquals(expected, createTree(fragment, normalize).toString());
+         assertEquals(expected, createTree(fragment, normalize).toString(0));
+         assertEquals(expected.length(), createTree(fragment, normalize).measure());
+         assertEquals(expected, new PicoParallelRenderer().render(createTree(fragment, normalize)));
+      }
+   }
+
+   public void testFragmentTakesIndentTextOfWriter() {
+      PicoFragment fragment = createGetter();
+      PicoWriter w = new PicoWriter("\t");
+      w.indentRight();
+      w.writeln(fragment);
+      assertEquals("\t\n\tint get() {\n\t\treturn 1;\n\t}\n", w.toString());
+   }
+
+   public void testFragmentIsSnapshotOfWriter() {
+      PicoWriter source = new PicoWriter();
+      source.writeln("a");
+      PicoFragment fragment = PicoFragment.of(source);
+      source.writeln("b");
+      assertEquals(1, fragment.getLineCount());
+      assertEquals("a\n", fragment.toString());
+   }
+
+   public void testPendingRowsComeFirst() {
+      PicoWriter w = new PicoWriter();
+      w.writeln(new String[] { "int ", "a;" });
+      w.writeln(PicoFragment.of(new SourceCodeContributor() {
+         @Override
+         public void contribute(PicoWriter f) {
+            f.writeln("// fragment");
+         }
+      }));
+      assertEquals("int a;\n// fragment\n", w.toString());
+   }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * Applies the same edits to an incremental and a regular tree, checking that they always render the same.
+ * @author agent
+ */
+public class TestPicoIncremental extends TestCase {
+
+   /**
+    * An item that counts how many times it has been rendered.
+    */
+   private static class CountingItem implements PicoWriterItem {
+      int _renders = 0;
+      @Override public String toString() { _renders++; return "// counted\n"; }
+   }
+
+   private PicoWriter[] _trees;
+   private PicoWriter[] _fields;
+   private PicoWriter[] _methods;
+   private PicoWriter[] _optional;
+   private PicoWriter[] _shared;
+
+   @Override
+   protected void setUp() {
+      _trees    = new PicoWriter[2];
+      _fields   = new PicoWriter[2];
+      _methods  = new PicoWriter[2];
+      _optional = new PicoWriter[2];
+      _shared   = new PicoWriter[2];
+      for (int i = 0; i < 2; i++) {
+         PicoWriter top = new PicoWriter();
+         top.setNormalizeAdjacentBlankRows(true);
+         top.setIncrementalRender(i == 0);
+         top.writeln_r("class A {");
+         _fields[i] = top.createDeferredWriter();
+         _fields[i].writeln("int a;");
+         _optional[i] = top.createDeferredWriter();
+         _optional[i].setGenerateIfEmpty(false);
+         top.writeln("");
+         _methods[i] = top.createDeferredWriter();
+         _methods[i].writeln("");
+         _methods[i].writeln("void m() {}");
+         _shared[i] = new PicoWriter();
+         _shared[i].writeln("// shared");
+         top.writeln(_shared[i]);
+         top.writeln_l("}");
+         _trees[i] = top;
+      }
+      assertEquals(_trees[1].toString(), _trees[0].toString());
+   }
+
+   private void check() {
+      assertEquals(_trees[1].toString(), _trees[0].toString());
+      assertEquals(_trees[1].toString(2), _trees[0].toString(2));
+      assertEquals(_trees[1].measure(), _trees[0].measure());
+      assertEquals(_trees[1].toString(), _trees[0].toString()); // Rendering twice in a row must be stable
+   }
+
+   public void testEdits() {
+      for (int i = 0; i < 2; i++) {
+         _fields[i].writeln("int b;");
+      }
+      check();
+      for (int i = 0; i < 2; i++) {
+         _optional[i].writeln("// now present");
+      }
+      check();
+      for (int i = 0; i < 2; i++) {
+         _fields[i].writeln(""); // Now followed by a blank row, so the first row of methods is suppressed
+      }
+      check();
+      for (int i = 0; i < 2; i++) {
+         _shared[i].writeln("// shared, after attaching");
+         _methods[i].createDeferredIndentedWriter("void n() {", "}").writeln("go();");
+      }
+      check();
+      for (int i = 0; i < 2; i++) {
+         _optional[i].setGenerate(false);
+      }
+      check();
+   }
+
+   public void testUnchangedWritersAreNotRendered() {
+      CountingItem counter = new CountingItem();
+      PicoWriter top = new PicoWriter();
+      top.setIncrementalRender(true);
+      PicoWriter unchanged = top.createDeferredWriter();
+      unchanged.getContent().add(counter);
+      PicoWriter changing = top.createDeferredWriter();
+
+      top.toString();
+      assertEquals(1, counter._renders); // The measuring pass and the render share the kept output
+      int before = counter._renders;
+      for (int i = 0; i < 10; i++) {
+         changing.writeln("line " + i);
+         String out = top.toString();
+         assertTrue(out.startsWith("// counted\n"));
+         assertTrue(out.endsWith("line " + i + "\n"));
+      }
+      assertEquals(before, counter._renders);
+   }
+}
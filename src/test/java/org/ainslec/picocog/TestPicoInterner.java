@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoInterner extends TestCase {
+
+   private static PicoWriter generate(PicoWriter w, int getters) {
+      w.writeln_r("class Bean {");
+      for (int i = 0; i < getters; i++) {
+         w.writeln("@Override");
+         w.writeln_r("public String get" + (i % 2) + "() {");
+         PicoWriter body = w.createDeferredWriter();
+         body.writeln("return name;");
+         body.createDeferredWriter().writeln("// nested");
+         w.writeln_l("}");
+      }
+      w.writeln_l("}");
+      return w;
+   }
+
+   public void testLinesAreShared() {
+      PicoInterner interner = new PicoInterner();
+      PicoWriter   w        = new PicoWriter();
+      w.setInterner(interner);
+      generate(w, 10);
+      assertEquals(generate(new PicoWriter(), 10).toString(), w.toString());
+
+      // "}" at two indents shares its text, every "@Override" is the same line
+      assertSame(w.getContent().get(1), w.getContent().get(5));
+      assertEquals(52, interner.getLinesAdded());
+      assertEquals(8, interner.getDistinctLines());
+      assertEquals(7, interner.getDistinctStrings());
+      assertEquals(6.5, interner.getLineDedupRatio(), 0.0001);
+   }
+
+   public void testSealSharesIdenticalSubtrees() {
+      PicoInterner interner = new PicoInterner();
+      PicoWriter   w        = new PicoWriter();
+      w.setInterner(interner);
+      generate(w, 10);
+      w.seal();
+      assertEquals(generate(new PicoWriter(), 10).toString(), w.toString());
+
+      // Each body, and the writer nested in it, is stored once
+      assertEquals(20, interner.getSubtreesAdded());
+      assertEquals(2, interner.getDistinctSubtrees());
+      assertEquals(10.0, interner.getSubtreeDedupRatio(), 0.0001);
+      PicoWriter first  = (PicoWriter) w.getContent().get(3);
+      PicoWriter second = (PicoWriter) w.getContent().get(7);
+      assertNotSame(first, second);
+      assertSame(first.getContent(), second.getContent());
+   }
+
+   public void testReleasingOneTreeLeavesSharedContent() {
+      PicoInterner   interner = new PicoInterner();
+      PicoWriterPool pool     = new PicoWriterPool();
+      PicoWriter     a        = pool.acquire();
+      PicoWriter     b        = pool.acquire();
+      a.setInterner(interner);
+      b.setInterner(interner);
+      generate(a, 2).seal();
+      generate(b, 2).seal();
+      String expected = b.toString();
+      pool.release(a);
+      generate(pool.acquire(), 3);
+      assertEquals(expected, b.toString());
+   }
+
+   public void testRecycledWriterDoesNotShareItsNewContent() {
+      PicoInterner   interner = new PicoInterner();
+      PicoWriterPool pool     = new PicoWriterPool();
+      PicoWriter     top1     = pool.acquire();
+      top1.setInterner(interner);
+      PicoWriter     body     = top1.createDeferredWriter();
+      body.writeln("return x;");
+      top1.seal();
+      pool.release(top1);
+
+      // The writer whose content was interned comes back from the pool, and is refilled with the same line
+      PicoWriter live = pool.acquire();
+      assertSame(body, live);
+      live.writeln("return x;");
+
+      PicoWriter top3 = new PicoWriter();
+      top3.setInterner(interner);
+      top3.createDeferredWriter().writeln("return x;");
+      top3.seal();
+
+      live.writeln("extra();");
+      assertEquals("return x;\n", top3.toString());
+      live.reset();
+      assertEquals("return x;\n", top3.toString());
+   }
+
+   public void testSharedSubtreeIsIndexedAgainstTheFirstCopy() throws IOException {
+      PicoWriter top = new PicoWriter();
+      top.setInterner(new PicoInterner());
+      PicoWriter[] inner = new PicoWriter[2];
+      for (int i = 0; i < 2; i++) {
+         PicoWriter outer = top.createDeferredWriter();
+         outer.writeln("{");
+         inner[i] = outer.createDeferredWriter();
+         inner[i].writeln("x");
+         outer.writeln("}");
+      }
+      top.seal();
+      PicoLineIndex index = new PicoLineIndex();
+      top.writeTo(new StringBuilder(), index);
+      assertEquals(2, index.getNodes(inner[0]).length);
+      assertEquals(0, index.getNodes(inner[1]).length);
+   }
+}
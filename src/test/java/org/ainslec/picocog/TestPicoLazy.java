@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.util.function.BooleanSupplier;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoLazy extends TestCase {
+
+   /**
+    * Writes a method, counting how many times it has been asked to.
+    */
+   private static class MethodContributor implements SourceCodeContributor {
+      final String _name;
+      int          _runs = 0;
+      MethodContributor(String name) { _name = name; }
+      @Override
+      public void contribute(PicoWriter w) {
+         _runs++;
+         if (_name != null) {
+            w.writeln_r("void " + _name + "() {");
+            w.writeln_l("}");
+         }
+      }
+   }
+
+   public void testLazyMatchesEager() {
+      PicoWriter eager = new PicoWriter();
+      eager.writeln_r("class A {");
+      new MethodContributor("a").contribute(eager.createDeferredWriter());
+      eager.writeln_l("}");
+
+      MethodContributor a = new MethodContributor("a");
+      PicoWriter lazy = new PicoWriter();
+      lazy.writeln_r("class A {");
+      lazy.createLazyWriter(a);
+      lazy.writeln_l("}");
+
+      assertEquals(0, a._runs);
+      assertEquals(eager.toString(), lazy.toString());
+      assertEquals(eager.toString(), lazy.toString());
+      assertEquals(1, a._runs);
+   }
+
+   public void testSuppressedLazyWritersAreNotRun() {
+      MethodContributor notGenerated = new MethodContributor("a");
+      MethodContributor probedEmpty  = new MethodContributor(null);
+      MethodContributor probedFull   = new MethodContributor("c");
+      final int[] probes = new int[1];
+      BooleanSupplier empty = new BooleanSupplier() {
+         @Override
+         public boolean getAsBoolean() {
+            probes[0]++;
+            return true;
+         }
+      };
+
+      PicoWriter top = new PicoWriter();
+      top.createLazyWriter(notGenerated).setGenerate(false);
+      PicoWriter b = top.createLazyWriter(probedEmpty, empty);
+      b.setGenerateIfEmpty(false);
+      PicoWriter c = top.createLazyWriter(probedFull);
+      c.setGenerateIfEmpty(false);
+
+      assertTrue(b.isMethodBodyEmpty());
+      assertEquals("void c() {\n}\n", top.toString());
+      assertEquals("void c() {\n}\n", top.toString());
+      assertEquals(0, notGenerated._runs);
+      assertEquals(0, probedEmpty._runs);
+      assertEquals(1, probedFull._runs);
+      assertEquals(1, probes[0]);
+   }
+
+   public void testSealRunsLazyWriters() {
+      MethodContributor a = new MethodContributor("a");
+      PicoWriter top = new PicoWriter();
+      top.setConcurrent(true);
+      top.createLazyWriter(a);
+      top.seal();
+      assertEquals(1, a._runs);
+      assertEquals("void a() {\n}\n", top.toString());
+   }
+
+   public void testFailedContributorRunsAgain() {
+      final int[] runs = new int[1];
+      PicoWriter top = new PicoWriter();
+      top.createLazyWriter(new SourceCodeContributor() {
+         @Override
+         public void contribute(PicoWriter w) {
+            w.writeln("part one");
+            w.writeln("int ", "a;");
+            if (++runs[0] == 1) {
+               throw new IllegalStateException("failed");
+            }
+            w.writeln("part two");
+         }
+      });
+      top.writeln("after");
+      try {
+         top.toString();
+         fail();
+      } catch (IllegalStateException e) {
+         // Expected
+      }
+      assertEquals("part one\nint a;\npart two\nafter\n", top.toString());
+      assertEquals(2, runs[0]);
+   }
+
+   public void testFailedContributorLeavesCompactRunAsItWas() {
+      final int[] runs = new int[1];
+      PicoWriter top = new PicoWriter();
+      top.setCompactStorage(true);
+      PicoWriter lazy = top.createLazyWriter(new SourceCodeContributor() {
+         @Override
+         public void contribute(PicoWriter w) {
+            w.writeln("part one");
+            if (++runs[0] == 1) {
+               throw new IllegalStateException("failed");
+            }
+            w.writeln("part two");
+         }
+      });
+      lazy.writeln("// Written before the contributor runs");
+      top.writeln("after");
+      try {
+         top.toString();
+         fail();
+      } catch (IllegalStateException e) {
+         // Expected
+      }
+      assertEquals(1, lazy.getContent().size());
+      assertEquals(1, ((CompactLines) lazy.getContent().get(0)).getLineCount());
+      assertEquals("// Written before the contributor runs\npart one\npart two\nafter\n", top.toString());
+      assertEquals(2, runs[0]);
+   }
+}
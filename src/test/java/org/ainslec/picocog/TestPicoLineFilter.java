@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoLineFilter extends TestCase {
+
+   private static PicoWriter build() {
+      PicoWriter w = new PicoWriter();
+      w.writeln_r("class A {  ");
+      PicoWriter inner = w.createDeferredWriter();
+      inner.writeln("");
+      inner.writeln("");
+      inner.writeln("");
+      inner.writeln("int a; \t");
+      w.writeln("");
+      w.writeln_l("}");
+      return w;
+   }
+
+   public void testNormalizeRunsAfterFilters() {
+      PicoWriter expected = build();
+      expected.setNormalizeAdjacentBlankRows(true);
+      PicoWriter w = build();
+      w.setNormalizeAdjacentBlankRows(true);
+      w.addLineFilter(PicoLineFilters.maxBlankRows(2));
+      assertEquals(expected.toString(), w.toString());
+      assertEquals(expected.toString(), w.toString()); // Filters start again on each render
+
+      // A line that only becomes blank once trimmed is collapsed too
+      w = new PicoWriter();
+      w.setNormalizeAdjacentBlankRows(true);
+      w.addLineFilter(PicoLineFilters.trimTrailingWhitespace());
+      w.writeln("a");
+      w.writeln("");
+      w.writeln("   ");
+      w.writeln("b");
+      assertEquals("a\n\nb\n", w.toString());
+      assertEquals(5, w.measure());
+   }
+
+   public void testPipeline() {
+      PicoWriter w = build();
+      w.setLineSeparator("\r\n");
+      w.addLineFilter(PicoLineFilters.trimTrailingWhitespace());
+      w.addLineFilter(PicoLineFilters.maxBlankRows(2));
+      w.addLineFilter(PicoLineFilters.indentWith("\t"));
+      String expected = "class A {\r\n\r\n\r\n\tint a;\r\n\r\n}\r\n";
+      assertEquals(expected, w.toString());
+      assertEquals(expected.length(), w.measure());
+      assertEquals(expected, new PicoParallelRenderer().render(w));
+   }
+
+   public void testCustomFilterDropsLines() {
+      PicoWriter w = build();
+      w.setIncrementalRender(true);
+      w.toString(); // Kept output must still pass through the filter
+      w.addLineFilter(new PicoLineFilter() {
+         @Override
+         public boolean filter(PicoLine line) {
+            return !line.toString().startsWith("int");
+         }
+      });
+      w.addLineFilter(PicoLineFilters.maxBlankRows(0));
+      assertEquals("class A {  \n}\n", w.toString());
+   }
+}
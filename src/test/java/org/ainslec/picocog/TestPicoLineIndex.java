@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoLineIndex extends TestCase {
+
+   public void testLinesMapToWritersAndOffsets() throws IOException {
+      PicoWriter header = new PicoWriter();
+      header.writeln("// Généré");
+
+      PicoWriter top = new PicoWriter();
+      top.writeln(header);
+      top.writeln_r("class A {");
+      PicoWriter fields = top.createDeferredWriter();
+      top.writeln_r("void m() {");
+      PicoWriter body = top.createDeferredWriter();
+      body.setCompactStorage(true);
+      body.writeln("a();");
+      body.writeln("b();");
+      top.writeln_l("}");
+      top.writeln(header);
+      top.writeln_l("}");
+      fields.writeln("int x;");
+
+      StringBuilder out   = new StringBuilder();
+      PicoLineIndex index = new PicoLineIndex();
+      top.writeTo(out, index);
+      assertEquals(top.toString(), out.toString());
+
+      String[] lines = out.toString().split("\n");
+      byte[]   bytes = out.toString().getBytes(StandardCharsets.UTF_8);
+      assertEquals(lines.length, index.getLineCount());
+      assertEquals(bytes.length, index.getLength());
+      long offset = 0;
+      for (int line = 1; line <= lines.length; line++) {
+         assertEquals(offset, index.getOffset(line));
+         long end = offset + lines[line - 1].getBytes(StandardCharsets.UTF_8).length + 1;
+         for (long o = offset; o < end; o++) {
+            assertEquals(line, index.getLine(o));
+         }
+         offset = end;
+      }
+
+      assertSame(header, index.getWriter(1));
+      assertSame(top, index.getWriter(2));
+      assertSame(fields, index.getWriter(3));
+      assertSame(body, index.getWriter(6));
+      assertSame(header, index.getWriter(8));
+      assertEquals("int x;", ((IndentedLine) index.getItem(3)).getLine());
+
+      // The header is rendered twice, so is two nodes
+      int[] headerNodes = index.getNodes(header);
+      assertEquals(2, headerNodes.length);
+      assertEquals(8, index.getNodeFirstLine(headerNodes[1]));
+      assertEquals(8, index.getNodeLastLine(headerNodes[1]));
+      int bodyNode = index.getNode(5);
+      assertEquals(5, index.getNodeFirstLine(bodyNode));
+      assertEquals(6, index.getNodeLastLine(bodyNode));
+      assertEquals(0, index.getNodeParent(bodyNode));
+      assertEquals(-1, index.getNodeParent(0));
+      assertEquals(0, index.getNodes(new PicoWriter()).length);
+
+      PicoLineIndex built = PicoLineIndex.of(top);
+      assertEquals(index.getLineCount(), built.getLineCount());
+      assertEquals(index.getLength(), built.getLength());
+   }
+
+   public void testFilteredLinesAreNotIndexed() throws IOException {
+      PicoWriter w = new PicoWriter();
+      w.writeln("a");
+      w.writeln("");
+      w.writeln("");
+      w.writeln("b");
+      w.addLineFilter(PicoLineFilters.maxBlankRows(1));
+      PicoLineIndex index = new PicoLineIndex();
+      w.writeTo(new StringBuilder(), index);
+      assertEquals(3, index.getLineCount());
+      assertEquals(3, index.getLine(3));
+      assertTrue(Arrays.equals(new int[] { 0 }, index.getNodes(w)));
+   }
+}
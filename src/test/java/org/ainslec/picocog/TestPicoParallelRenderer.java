@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoParallelRenderer extends TestCase {
+
+   /**
+    * Many sibling writers, with blank rows at the start and end of writers so that normalisation crosses task boundaries.
+    */
+   private static PicoWriter createWideTree(boolean normalizeAdjacentBlankRows) {
+      PicoWriter top = new PicoWriter();
+      top.setNormalizeAdjacentBlankRows(normalizeAdjacentBlankRows);
+      top.writeln_r("public class Wide {");
+      for (int i = 0; i < 200; i++) {
+         PicoWriter member = top.createDeferredWriter();
+         if (i % 3 == 0) {
+            member.writeln("");
+         }
+         PicoWriter body = member.createDeferredIndentedWriter("void m" + i + "() {", "}");
+         for (int j = 0; j < i % 7; j++) {
+            body.writeln("call(" + j + ");");
+            if (j % 2 == 0) {
+               body.writeln("");
+               body.writeln("");
+            }
+         }
+         if (i % 5 == 0) {
+            member.writeln("");
+         }
+         if (i % 11 == 0) {
+            top.createDeferredWriter().setGenerateIfEmpty(false);
+            top.writeln("");
+         }
+      }
+      top.writeln_l("}");
+      return top;
+   }
+
+   public void testMatchesSequentialRender() {
+      for (boolean normalize : new boolean[] {false, true}) {
+         for (int threshold : new int[] {1, 2, 5, 50, 100000}) {
+            PicoParallelRenderer renderer = new PicoParallelRenderer();
+            renderer.setThreshold(threshold);
+            PicoWriter w = createWideTree(normalize);
+            assertEquals(w.toString(), renderer.render(w));
+            assertEquals(w.toString(1), renderer.render(w, 1));
+
+            PicoWriter sample = TestPicoRendering.createSampleTree(normalize);
+            assertEquals(sample.toString(), renderer.render(sample));
+         }
+      }
+   }
+}
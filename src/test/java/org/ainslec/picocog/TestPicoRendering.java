@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the various render entry points agree with {@link PicoWriter#toString()}.
+ * @author agent
+ */
+public class TestPicoRendering extends TestCase {
+
+   /**
+    * Builds a tree that exercises deferred writers, blank rows, suppressed writers and column rows.
+    */
+   static PicoWriter createSampleTree(boolean normalizeAdjacentBlankRows) {
+      PicoWriter top = new PicoWriter();
+      top.setNormalizeAdjacentBlankRows(normalizeAdjacentBlankRows);
+      return createSampleTree(top);
+   }
+
+   static PicoWriter createSampleTree(PicoWriter top) {
+      top.writeln("package com.samplepackage;");
+      top.writeln("");
+      top.writeln("");
+      top.writeln_r("public class Sample {");
+
+      PicoWriter fields  = top.createDeferredWriter();
+      top.writeln("");
+      PicoWriter methods = top.createDeferredWriter();
+      PicoWriter hidden  = top.createDeferredWriter();
+      PicoWriter empty   = top.createDeferredWriter();
+      empty.setGenerateIfEmpty(false);
+      top.writeln("");
+      top.writeln_l("}");
+
+      fields.writeln("private", "int",    "a;");
+      fields.writeln("private", "String", "longerName;");
+      fields.writeln("");
+
+      hidden.writeln("// Should never be seen");
+      hidden.setGenerate(false);
+
+      for (int i = 0; i < 3; i++) {
+         PicoWriter method = methods.createDeferredIndentedWriter("public void method" + i + "() {", "}");
+         method.writeln("doSomething(" + i + ");");
+         methods.writeln("");
+      }
+      return top;
+   }
+
+   public void testWriteToMatchesToString() throws Exception {
+      for (boolean normalize : new boolean[] {false, true}) {
+         PicoWriter w = createSampleTree(normalize);
+         String expected = w.toString();
+
+         StringWriter out = new StringWriter();
+         w.writeTo(out);
+         assertEquals(expected, out.toString());
+
+         StringBuilder sb = new StringBuilder();
+         w.writeTo(sb, 2);
+         assertEquals(w.toString(2), sb.toString());
+      }
+   }
+
+   public void testMeasure() {
+      for (boolean normalize : new boolean[] {false, true}) {
+         PicoWriter w = createSampleTree(normalize);
+         assertEquals(w.toString().length(), w.measure());
+         assertEquals(w.toString(3).length(), w.measure(3));
+         w.setLineSeparator("\r\n");
+         assertEquals(w.toString().length(), w.measure());
+      }
+      PicoWriter tabs = new PicoWriter("\t");
+      tabs.writeln_r("{");
+      tabs.writeln_r("{");
+      tabs.writeln_l("}");
+      tabs.writeln_l("}");
+      assertEquals("{\n\t{\n\t}\n}\n", tabs.toString());
+      assertEquals(tabs.toString().length(), tabs.measure());
+   }
+   
+   public void testAttachWriter() {
+      PicoWriter method = new PicoWriter("\t");
+      method.writeln_r("void run() {");
+      PicoWriter body = method.createDeferredWriter();
+      method.writeln_l("}");
+      body.writeln("go();");
+      
+      PicoWriter outer = new PicoWriter();
+      outer.writeln_r("class A {");
+      outer.writeln(method);
+      outer.indentRight();
+      outer.writeln(method); // The same writer may be attached more than once
+      outer.indentLeft();
+      outer.writeln_l("}");
+      
+      body.writeln("stop();"); // Content added after attaching is indented too
+      
+      assertEquals("void run() {\n\tgo();\n\tstop();\n}\n", method.toString());
+      assertEquals(
+         "class A {\n" +
+         "   void run() {\n" +
+         "      go();\n" +
+         "      stop();\n" +
+         "   }\n" +
+         "      void run() {\n" +
+         "         go();\n" +
+         "         stop();\n" +
+         "      }\n" +
+         "}\n", outer.toString());
+      assertEquals(outer.toString().length(), outer.measure());
+      PicoParallelRenderer parallel = new PicoParallelRenderer();
+      parallel.setThreshold(1);
+      assertEquals(outer.toString(), parallel.render(outer));
+   }
+   
+   public void testCompactStorage() {
+      for (boolean normalize : new boolean[] {false, true}) {
+         PicoWriter compact = new PicoWriter();
+         compact.setNormalizeAdjacentBlankRows(normalize);
+         compact.setCompactStorage(true);
+         createSampleTree(compact);
+         compact.writeln("// \u00e9t\u00e9");
+         compact.writeln("// \u20ac\u4e2d\u6587"); // Widens the arena beyond ISO-8859-1
+         compact.writeln("");
+         
+         PicoWriter regular = createSampleTree(normalize);
+         regular.writeln("// \u00e9t\u00e9");
+         regular.writeln("// \u20ac\u4e2d\u6587");
+         regular.writeln("");
+         
+         assertEquals(regular.toString(), compact.toString());
+         assertEquals(regular.measure(), compact.measure());
+         compact.seal();
+         assertEquals(regular.toString(), compact.toString());
+      }
+   }
+   
+   public void testNormalizeAdjacentBlankRows() {
+      String normalized = createSampleTree(true).toString();
+      assertFalse(normalized.contains("\n\n\n"));
+      assertFalse(normalized.contains("Should never be seen"));
+      assertTrue(createSampleTree(false).toString().contains("\n\n\n"));
+   }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoSerializer extends TestCase {
+
+   private static PicoWriter partBuilt() {
+      PicoWriter shared = new PicoWriter();
+      shared.writeln("// shared");
+
+      PicoWriter w = new PicoWriter("\t");
+      w.setLineSeparator("\r\n");
+      w.writeln_r("class A {");
+      PicoWriter fields = w.createDeferredWriter();
+      fields.writeln(shared);
+      w.writeBlock("   /*\n    * Block\n    */", true);
+      w.writeln(PicoFragment.of(shared));
+      PicoWriter methods = w.createDeferredWriter();
+      methods.setGenerateIfEmpty(false);
+      w.writeln(shared);
+      w.beginAlignmentGroup();
+      w.writeln("int", "a;");
+      w.writeln("String", "name;");
+      w.write("// pending");
+      return w;
+   }
+
+   private static void finish(PicoWriter w) {
+      w.writeln(" text");
+      w.writeln("long", "b;");
+      w.endAlignmentGroup();
+      w.writeln_l("}");
+   }
+
+   public void testRoundTripOfPartBuiltTree() throws IOException {
+      PicoWriter original = partBuilt();
+      PicoWriter loaded   = PicoSerializer.fromBytes(PicoSerializer.toBytes(original));
+      assertEquals(original.toString(), loaded.toString());
+
+      // Generation carries on where it left off
+      finish(original);
+      finish(loaded);
+      assertEquals(original.toString(), loaded.toString());
+   }
+
+   public void testDeepTreeSavedToFile() throws IOException {
+      PicoWriter w = new PicoWriter();
+      PicoWriter current = w;
+      for (int i = 0; i < 20000; i++) {
+         current.writeln("{" + (i % 10));
+         current = current.createDeferredWriter();
+      }
+      Path dir  = Files.createTempDirectory("picocog");
+      Path file = dir.resolve("tree.pico");
+      try {
+         PicoSerializer.save(w, file);
+         assertTrue(Files.size(file) > 1 << 16); // Large enough to be memory mapped
+         assertEquals(w.toString(), PicoSerializer.load(file).toString());
+      } finally {
+         Files.deleteIfExists(file);
+         Files.delete(dir);
+      }
+   }
+
+   public void testNotASavedWriter() {
+      try {
+         PicoSerializer.fromBytes(new byte[] { 1, 2, 3, 4, 5 });
+         fail();
+      } catch (IOException e) {
+         // Expected
+      }
+   }
+
+   public void testGenerationCache() throws IOException {
+      Path dir = Files.createTempDirectory("picocog");
+      try {
+         PicoGenerationCache cache = new PicoGenerationCache(dir);
+         final int[] runs = new int[1];
+         SourceCodeContributor generator = new SourceCodeContributor() {
+            @Override
+            public void contribute(PicoWriter w) {
+               runs[0]++;
+               w.writeln_r("class Foo {");
+               w.writeln_l("}");
+            }
+         };
+         String expected = "class Foo {\n}\n";
+         assertEquals(expected, cache.get("com/x/Foo.java", "v1", generator).toString());
+         assertEquals(expected, cache.get("com/x/Foo.java", "v1", generator).toString());
+         assertEquals(1, runs[0]);
+         assertNull(cache.load("com/x/Foo.java", "v2"));
+         assertNull(cache.load("com_x/Foo.java", "v1"));
+         cache.get("com/x/Foo.java", "v2", generator);
+         assertEquals(2, runs[0]);
+         cache.remove("com/x/Foo.java");
+         assertNull(cache.load("com/x/Foo.java", "v2"));
+      } finally {
+         Files.delete(dir);
+      }
+   }
+
+   public void testLargeCacheEntryReplacedAfterLoading() throws IOException {
+      Path dir = Files.createTempDirectory("picocog");
+      try {
+         PicoGenerationCache cache = new PicoGenerationCache(dir);
+         PicoWriter large = new PicoWriter();
+         for (int i = 0; i < 10000; i++) {
+            large.writeln("line " + i + " of an entry larger than the size at which files are mapped");
+         }
+         cache.save("Large.java", "v1", large);
+         PicoWriter loaded = cache.load("Large.java", "v1");
+         assertEquals(large.toString(), loaded.toString());
+         // Replaced straight after loading, before a mapping of the entry could have been collected
+         cache.save("Large.java", "v2", new PicoWriter());
+         assertNull(cache.load("Large.java", "v1"));
+         assertEquals("", cache.load("Large.java", "v2").toString());
+         assertEquals(large.toString(), loaded.toString());
+         cache.remove("Large.java");
+      } finally {
+         Files.delete(dir);
+      }
+   }
+}
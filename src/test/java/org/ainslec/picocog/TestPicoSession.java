@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoSession extends TestCase {
+
+   private static PicoWriter createClass(String name) {
+      PicoWriter w = new PicoWriter();
+      w.writeln_r("class " + name + " {");
+      w.writeln("int a;");
+      w.writeln_l("}");
+      return w;
+   }
+
+   private static PicoSession createSession(Path dir, int count) {
+      PicoSession session = new PicoSession(3);
+      for (int i = 0; i < count; i++) {
+         session.add(dir.resolve("pkg/C" + i + ".java"), createClass("C" + i));
+      }
+      return session;
+   }
+
+   private static void delete(Path dir) throws IOException {
+      for (int i = 0; i < 20; i++) {
+         Files.deleteIfExists(dir.resolve("pkg/C" + i + ".java"));
+      }
+      Files.deleteIfExists(dir.resolve("pkg"));
+      Files.deleteIfExists(dir);
+   }
+
+   public void testWritesOnlyChangedFiles() throws Exception {
+      Path dir = Files.createTempDirectory("picocog");
+      try {
+         List<PicoSession.FileResult> results = createSession(dir, 20).write();
+         assertEquals(20, results.size());
+         for (int i = 0; i < 20; i++) {
+            PicoSession.FileResult result = results.get(i);
+            assertEquals(PicoSession.Status.WRITTEN, result.getStatus());
+            assertTrue(result.getPath().endsWith("C" + i + ".java"));
+            String expected = createClass("C" + i).toString();
+            assertEquals(expected, new String(Files.readAllBytes(result.getPath()), StandardCharsets.UTF_8));
+            assertEquals(expected.length(), result.getBytes());
+         }
+
+         // Change one file (keeping the same length), and write everything again
+         Path changed = dir.resolve("pkg/C7.java");
+         Files.write(changed, createClass("X7").toString().getBytes(StandardCharsets.UTF_8));
+         results = createSession(dir, 20).write();
+         for (int i = 0; i < 20; i++) {
+            assertEquals(i == 7 ? PicoSession.Status.WRITTEN : PicoSession.Status.UNCHANGED, results.get(i).getStatus());
+         }
+         assertEquals(createClass("C7").toString(), new String(Files.readAllBytes(changed), StandardCharsets.UTF_8));
+      } finally {
+         delete(dir);
+      }
+   }
+
+   public void testFailuresAreCollected() throws Exception {
+      Path dir = Files.createTempDirectory("picocog");
+      try {
+         PicoSession session = createSession(dir, 2);
+         Files.createDirectories(dir.resolve("pkg/bad1.java"));
+         Files.createDirectories(dir.resolve("pkg/bad2.java"));
+         session.add(dir.resolve("pkg/bad1.java"), createClass("Bad1"));
+         session.add(dir.resolve("pkg/bad2.java"), createClass("Bad2"));
+         try {
+            session.write();
+            fail("Writing over a directory should fail");
+         } catch (IOException e) {
+            assertEquals(1, e.getSuppressed().length);
+         }
+         assertTrue(Files.isRegularFile(dir.resolve("pkg/C1.java")));
+         Files.delete(dir.resolve("pkg/bad1.java"));
+         Files.delete(dir.resolve("pkg/bad2.java"));
+      } finally {
+         delete(dir);
+      }
+   }
+}
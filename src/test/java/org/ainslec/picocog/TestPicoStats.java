@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoStats extends TestCase {
+
+   private static PicoWriter createTree() {
+      PicoWriter top = new PicoWriter();
+      top.writeln_r("class A {");
+      PicoWriter fields = top.createDeferredWriter();
+      fields.writeln("int", "a", "= 1;");
+      fields.writeln("long", "bb", "= 2;");
+      fields.writeln("// é");
+      PicoWriter inner = fields.createDeferredWriter();
+      inner.writeln_r("void m() {");
+      inner.writeln("return;");
+      inner.writeln_l("}");
+      PicoWriter empty = top.createDeferredWriter();
+      empty.setGenerate(false);
+      top.writeln_l("}");
+      return top;
+   }
+
+   public void testStats() {
+      PicoWriter top = createTree();
+      String rendered = top.toString();
+      PicoStats stats = top.getStats();
+      assertEquals(rendered.split("\n", -1).length - 1, stats.getLines());
+      assertEquals(rendered.length(), stats.getCharacters());
+      assertEquals(rendered.getBytes(StandardCharsets.UTF_8).length, stats.getBytes());
+      assertEquals(2, stats.getMaxIndent());
+      assertEquals(2, stats.getMaxDepth());
+      assertEquals(3, stats.getDeferredWriterCount());
+      assertEquals(0, stats.getAttachedWriterCount());
+      assertEquals(2, stats.getColumnRowsFlushed());
+   }
+
+   public void testRenderTimings() {
+      PicoWriter top = createTree();
+      PicoRenderTimings timings = new PicoRenderTimings();
+      top.setRenderListener(timings);
+      PicoWriter late = top.createDeferredWriter();
+      late.writeln("x", "y");
+      late.writeln("");
+      String rendered = top.toString();
+      assertTrue(timings.getRenderNanos(top) > 0);
+      assertTrue(timings.getRenderNanos(late) > 0);
+      assertTrue(timings.getFlushNanos(late) > 0);
+      assertTrue(timings.getRenderNanos(top) >= timings.getRenderNanos(late));
+
+      // The flight recorder listener renders the same output
+      top.setRenderListener(new PicoFlightRecorder());
+      assertEquals(rendered, top.toString());
+      top.setRenderListener(null);
+      assertNull(late.getRenderListener());
+   }
+
+   public void testParallelRenderIsNotTimed() {
+      for (int threshold : new int[] { 1, 1000 }) {
+         PicoWriter top = createTree();
+         top.toString(); // Flushes the column rows
+         PicoRenderTimings timings = new PicoRenderTimings();
+         top.setRenderListener(timings);
+         PicoParallelRenderer parallel = new PicoParallelRenderer();
+         parallel.setThreshold(threshold);
+         assertEquals(top.toString(), parallel.render(top));
+         timings.clear();
+         parallel.render(top);
+         assertEquals(0, timings.getRenderNanos(top));
+      }
+   }
+}
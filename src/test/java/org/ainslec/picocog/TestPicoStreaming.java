@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoStreaming extends TestCase {
+
+   /**
+    * Writes a table with a header that is only filled in at the end, to the streaming writer (if any) and the
+    * regular writer, checking how much of the streaming tree is still held as it goes.
+    */
+   private void writeTable(PicoWriter streaming, PicoWriter regular, int rows) {
+      PicoWriter[] tops    = streaming == null ? new PicoWriter[] { regular } : new PicoWriter[] { streaming, regular };
+      PicoWriter[] headers = new PicoWriter[tops.length];
+      PicoWriter[] bodies  = new PicoWriter[tops.length];
+      for (int t = 0; t < tops.length; t++) {
+         tops[t].writeln("-- migration");
+         tops[t].writeln("");
+         headers[t] = tops[t].createDeferredWriter();
+         tops[t].writeln_r("INSERT INTO t VALUES");
+         bodies[t] = tops[t].createDeferredWriter();
+         tops[t].writeln_l(";");
+      }
+      for (int t = 0; t < tops.length; t++) {
+         headers[t].writeln("");
+         headers[t].writeln("-- " + rows + " rows");
+         if (t == 0 && streaming != null) {
+            headers[t].close();
+         }
+      }
+      for (int i = 0; i < rows; i++) {
+         for (int t = 0; t < tops.length; t++) {
+            bodies[t].writeln("(" + i + "),");
+            if (i % 100 == 0) {
+               bodies[t].writeln("");
+               bodies[t].writeln("");
+            }
+         }
+         if (streaming != null) {
+            assertTrue(heldLines(bodies[0]) <= StreamState.BATCH_SIZE + 2);
+         }
+      }
+   }
+
+   private static int heldLines(PicoWriter writer) {
+      int lines = 0;
+      for (PicoWriterItem item : writer.getContent()) {
+         lines += item instanceof CompactLines ? ((CompactLines) item).getLineCount() : 1;
+      }
+      return lines;
+   }
+
+   public void testStreamingMatchesToString() {
+      for (boolean normalize : new boolean[] { false, true }) {
+         for (boolean compact : new boolean[] { false, true }) {
+            StringBuilder out = new StringBuilder();
+            PicoWriter streaming = new PicoWriter();
+            streaming.setNormalizeAdjacentBlankRows(normalize);
+            streaming.setCompactStorage(compact);
+            streaming.startStreaming(out);
+            PicoWriter regular = new PicoWriter();
+            regular.setNormalizeAdjacentBlankRows(normalize);
+            writeTable(streaming, regular, 10000);
+            // The body is still open, but all but its most recent lines have been written out
+            assertTrue(out.toString().split("\n").length > 10000 - StreamState.BATCH_SIZE);
+            streaming.finishStreaming();
+            assertFalse(streaming.isStreaming());
+            assertEquals(regular.toString(), out.toString());
+         }
+      }
+   }
+
+   public void testOpenWriterHoldsBackOutput() {
+      StringBuilder out = new StringBuilder();
+      PicoWriter top = new PicoWriter();
+      top.startStreaming(out);
+      top.writeln("a");
+      PicoWriter open = top.createDeferredWriter();
+      open.setGenerateIfEmpty(false);
+      top.writeln("c");
+      for (int i = 0; i < StreamState.BATCH_SIZE; i++) {
+         top.writeln("d");
+      }
+      assertEquals("a\n", out.toString());
+      open.writeln("b");
+      open.close();
+      assertTrue(out.toString().startsWith("a\nb\nc\nd\n"));
+      top.finishStreaming();
+      assertEquals(StreamState.BATCH_SIZE + 3, out.toString().split("\n").length);
+   }
+
+   public void testConcurrentWriterCannotStream() {
+      PicoWriter top = new PicoWriter();
+      PicoWriter section = top.createDeferredWriter();
+      section.setConcurrent(true);
+      try {
+         top.startStreaming(new StringBuilder());
+         fail("A tree with a concurrent writer should not stream");
+      } catch (RuntimeException e) {
+         // Expected
+      }
+      assertFalse(top.isStreaming());
+      section.setConcurrent(false);
+      top.startStreaming(new StringBuilder());
+      try {
+         top.createDeferredWriter().setConcurrent(true);
+         fail("A streaming writer should not become concurrent");
+      } catch (RuntimeException e) {
+         // Expected
+      }
+   }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import java.nio.CharBuffer;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoTextBlock extends TestCase {
+
+   public void testBlockMatchesLines() {
+      for (boolean normalize : new boolean[] { false, true }) {
+         PicoWriter expected = new PicoWriter();
+         expected.setNormalizeAdjacentBlankRows(normalize);
+         expected.writeln_r("class A {");
+         expected.writeln("/**");
+         expected.writeln(" * Doc");
+         expected.writeln("");
+         expected.writeln("");
+         expected.writeln(" */");
+         expected.writeln_l("}");
+
+         PicoWriter w = new PicoWriter();
+         w.setNormalizeAdjacentBlankRows(normalize);
+         w.writeln_r("class A {");
+         w.writeBlock("/**\r\n * Doc\n\r\r */\n");
+         w.writeln_l("}");
+
+         assertEquals(expected.toString(), w.toString());
+         assertEquals(expected.toString().length(), w.measure());
+      }
+   }
+
+   public void testStripCommonIndent() {
+      CharBuffer text = CharBuffer.wrap("xx\n      SELECT *\n\n        FROM t\n      WHERE a = 1");
+      text.position(3);
+      PicoWriter w = new PicoWriter("  ");
+      w.indentRight();
+      w.writeBlock(text, true);
+      text.position(0); // Moving the buffer afterwards does not change the block
+      w.writeln(";");
+      assertEquals("  SELECT *\n  \n    FROM t\n  WHERE a = 1\n  ;\n", w.toString());
+   }
+
+   public void testEmptyBlocks() {
+      PicoWriter w = new PicoWriter();
+      w.writeBlock("");
+      w.writeBlock("\n");
+      w.writeBlock("a");
+      assertEquals("\na\n", w.toString());
+   }
+
+   public void testPendingRowsComeFirst() {
+      PicoWriter w = new PicoWriter();
+      w.writeln(new String[] { "int ", "a;" });
+      w.writeln(new String[] { "long ", "bb;" });
+      w.writeBlock("// block\n");
+      assertEquals("int  a; \nlong bb;\n// block\n", w.toString());
+   }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026, agent
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ainslec.picocog;
+
+import junit.framework.TestCase;
+
+/**
+ * @author agent
+ */
+public class TestPicoWriterPool extends TestCase {
+
+   public void testResetMatchesNewWriter() {
+      for (boolean compact : new boolean[] { false, true }) {
+         PicoWriter reused = new PicoWriter();
+         reused.setCompactStorage(compact);
+         reused.setNormalizeAdjacentBlankRows(true);
+         for (int i = 0; i < 3; i++) {
+            TestPicoRendering.createSampleTree(reused);
+            assertEquals(TestPicoRendering.createSampleTree(true).toString(), reused.toString());
+            reused.seal();
+            reused.reset();
+            assertEquals("", reused.toString());
+         }
+      }
+   }
+
+   public void testResetDropsPendingRows() {
+      PicoWriter w = new PicoWriter();
+      w.indentRight();
+      w.writeln("a", "b");
+      w.writeln_r("pending");
+      w.reset();
+      w.writeln("x");
+      assertEquals("x\n", w.toString());
+   }
+
+   public void testPooledWritersAreReused() {
+      PicoWriterPool pool = new PicoWriterPool();
+      String expected = null;
+      PicoWriter[] first = null;
+      for (int i = 0; i < 3; i++) {
+         PicoWriter top = pool.acquire("\t");
+         top.writeln_r("class A {");
+         PicoWriter fields = top.createDeferredWriter();
+         fields.writeln("int a;");
+         PicoWriter methods = top.createDeferredWriter();
+         methods.setGenerateIfEmpty(false);
+         top.writeln_l("}");
+         String rendered = pool.toString(top);
+         assertEquals("class A {\n\tint a;\n}\n", rendered);
+         if (expected == null) {
+            expected = rendered;
+            first = new PicoWriter[] { top, fields, methods };
+         } else {
+            // Writers come back from the pool, in some order
+            for (PicoWriter w : new PicoWriter[] { top, fields, methods }) {
+               assertTrue(w == first[0] || w == first[1] || w == first[2]);
+            }
+         }
+         pool.release(top);
+         assertEquals(3, pool.getIdleWriterCount());
+      }
+   }
+}